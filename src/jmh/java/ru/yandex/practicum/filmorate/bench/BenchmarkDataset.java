@@ -0,0 +1,122 @@
+package ru.yandex.practicum.filmorate.bench;
+
+import org.flywaydb.core.Flyway;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+//Синтетический набор данных: size фильмов и пользователей, по LIKES_PER_USER лайков и FRIENDS_PER_USER друзей на пользователя
+public final class BenchmarkDataset {
+    public static final int LIKES_PER_USER = 3;
+    public static final int FRIENDS_PER_USER = 3;
+    public static final int FILMS_PER_DIRECTOR = 100;
+    public static final String[] TITLE_WORDS = {
+        "Ночь", "Город", "Ёлка", "Звезда", "Дорога", "Море", "Тайна", "Зима", "Легенда", "Охота",
+        "Space", "Night", "Love", "Story", "River", "Ghost"
+    };
+
+    private static final int BATCH_SIZE = 10_000;
+    private static final int MPA_COUNT = 5;
+    private static final int GENRE_COUNT = 6;
+    private static final String[] DIRECTOR_NAMES = {
+        "Тарковский", "Михалков", "Балабанов", "Звягинцев", "Nolan", "Kubrick", "Scorsese", "Fincher"
+    };
+
+    private BenchmarkDataset() {
+    }
+
+    public static void seed(String url, int size) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(url, "sa", "password");
+        //База пересоздаётся теми же миграциями, что и у приложения; рейтинги и жанры приходят из них же
+        Flyway flyway = Flyway.configure().dataSource(dataSource).cleanDisabled(false).load();
+        flyway.clean();
+        flyway.migrate();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        Random random = new Random(42);
+
+        int directors = Math.max(1, size / FILMS_PER_DIRECTOR);
+        insert(jdbcTemplate, "INSERT INTO directors (director_id, name) VALUES (?, ?)", directors,
+                id -> new Object[]{id, DIRECTOR_NAMES[id % DIRECTOR_NAMES.length] + " " + id});
+
+        insert(jdbcTemplate, "INSERT INTO users (user_id, email, login, name, birthday) VALUES (?, ?, ?, ?, ?)", size,
+                id -> new Object[]{id, "user" + id + "@mail.ru", "user" + id, "Пользователь " + id,
+                        Date.valueOf(LocalDate.of(1970, 1, 1).plusDays(id % 15_000))});
+
+        insert(jdbcTemplate, "INSERT INTO films (film_id, name, description, release_date, duration, mpa_id) "
+                        + "VALUES (?, ?, ?, ?, ?, ?)", size,
+                id -> new Object[]{id, TITLE_WORDS[id % TITLE_WORDS.length] + " "
+                        + TITLE_WORDS[(id / TITLE_WORDS.length) % TITLE_WORDS.length] + " " + id,
+                        "Описание фильма " + id, Date.valueOf(LocalDate.of(1950, 1, 1).plusDays(id % 27_000)),
+                        60 + id % 120, 1 + id % MPA_COUNT});
+
+        insert(jdbcTemplate, "INSERT INTO film_genres (film_id, genre_id) VALUES (?, ?)", size,
+                id -> new Object[]{id, 1 + id % GENRE_COUNT});
+        insert(jdbcTemplate, "INSERT INTO film_directors (film_id, director_id) VALUES (?, ?)", size,
+                id -> new Object[]{id, 1 + (id - 1) / FILMS_PER_DIRECTOR % directors});
+
+        //Популярность фильмов неравномерная: квадрат равномерной величины смещает лайки к началу каталога
+        List<Object[]> likes = new ArrayList<>(BATCH_SIZE);
+        for (int userId = 1; userId <= size; userId++) {
+            int first = 1 + (int) (size * Math.pow(random.nextDouble(), 2));
+            for (int i = 0; i < LIKES_PER_USER; i++) {
+                likes.add(new Object[]{1 + (first - 1 + i) % size, userId});
+            }
+            flushIfFull(jdbcTemplate, "INSERT INTO film_likes (film_id, user_id) VALUES (?, ?)", likes);
+        }
+        flush(jdbcTemplate, "INSERT INTO film_likes (film_id, user_id) VALUES (?, ?)", likes);
+
+        List<Object[]> friendships = new ArrayList<>(BATCH_SIZE);
+        for (int userId = 1; userId <= size; userId++) {
+            for (int i = 1; i <= FRIENDS_PER_USER; i++) {
+                int friendId = 1 + (userId - 1 + i * 7) % size;
+                if (friendId != userId) {
+                    friendships.add(new Object[]{userId, friendId});
+                }
+            }
+            flushIfFull(jdbcTemplate, "INSERT INTO friendships (user_id, friend_id) VALUES (?, ?)", friendships);
+        }
+        flush(jdbcTemplate, "INSERT INTO friendships (user_id, friend_id) VALUES (?, ?)", friendships);
+
+        jdbcTemplate.update("""
+                UPDATE films f SET likes_count = (SELECT COUNT(*) FROM film_likes l WHERE l.film_id = f.film_id)
+                """);
+        for (String table : new String[]{"directors", "users", "films"}) {
+            String column = table.substring(0, table.length() - 1) + "_id";
+            jdbcTemplate.execute("ALTER TABLE " + table + " ALTER COLUMN " + column
+                    + " RESTART WITH " + (jdbcTemplate.queryForObject("SELECT MAX(" + column + ") FROM " + table,
+                    Integer.class) + 1));
+        }
+    }
+
+    private static void insert(JdbcTemplate jdbcTemplate, String sql, int count, RowFactory factory) {
+        List<Object[]> rows = new ArrayList<>(BATCH_SIZE);
+        for (int id = 1; id <= count; id++) {
+            rows.add(factory.create(id));
+            flushIfFull(jdbcTemplate, sql, rows);
+        }
+        flush(jdbcTemplate, sql, rows);
+    }
+
+    private static void flushIfFull(JdbcTemplate jdbcTemplate, String sql, List<Object[]> rows) {
+        if (rows.size() >= BATCH_SIZE) {
+            flush(jdbcTemplate, sql, rows);
+        }
+    }
+
+    private static void flush(JdbcTemplate jdbcTemplate, String sql, List<Object[]> rows) {
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(sql, rows);
+            rows.clear();
+        }
+    }
+
+    @FunctionalInterface
+    private interface RowFactory {
+        Object[] create(int id);
+    }
+}
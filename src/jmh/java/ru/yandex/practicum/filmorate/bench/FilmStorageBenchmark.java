@@ -0,0 +1,74 @@
+package ru.yandex.practicum.filmorate.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.storage.film.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.film.FilmFilter;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+public class FilmStorageBenchmark {
+    private FilmService filmService;
+    private FilmStorage filmStorage;
+    private FilmDbStorage filmDbStorage;
+
+    @Setup
+    public void setUp(FilmorateState state) {
+        filmService = state.bean(FilmService.class);
+        filmStorage = state.bean(FilmStorage.class);
+        filmDbStorage = state.bean(FilmDbStorage.class);
+    }
+
+    //Тот же путь, что у /films/popular: рейтинг лайков в памяти, фасетный индекс и дозагрузка фильмов по id
+    @Benchmark
+    public List<Film> getPopularFilms() {
+        return filmService.getPopularFilms(10, FilmFilter.NONE);
+    }
+
+    @Benchmark
+    public List<Film> getPopularFilmsByGenreAndYear() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int year = random.nextInt(1950, 2020);
+        return filmService.getPopularFilms(10, new FilmFilter(Set.of(random.nextInt(1, 7)), Set.of(), Set.of(),
+                year, year));
+    }
+
+    @Benchmark
+    public Optional<Film> getFilmByIdCached(FilmorateState state) {
+        return filmStorage.getFilmById(state.randomId());
+    }
+
+    @Benchmark
+    public Optional<Film> getFilmByIdUncached(FilmorateState state) {
+        return filmDbStorage.getFilmById(state.randomId());
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Measurement(iterations = 5)
+    public List<Film> getAllFilms() {
+        return filmStorage.getAllFilms();
+    }
+}
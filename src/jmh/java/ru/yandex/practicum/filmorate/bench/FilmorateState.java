@@ -0,0 +1,54 @@
+package ru.yandex.practicum.filmorate.bench;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+@State(Scope.Benchmark)
+public class FilmorateState {
+    private static final String URL = "jdbc:h2:mem:filmorate_bench;DB_CLOSE_DELAY=-1";
+
+    @Param({"10000", "100000", "1000000"})
+    public int size;
+
+    private ConfigurableApplicationContext context;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkDataset.seed(URL, size);
+        context = new SpringApplicationBuilder(FilmorateApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=" + URL,
+                        "filmorate.likes.reconcile.initial-delay-ms=86400000",
+                        "logging.level.root=WARN")
+                .run();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    public <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    public int randomId() {
+        return ThreadLocalRandom.current().nextInt(1, size + 1);
+    }
+
+    public String randomWord() {
+        String[] words = BenchmarkDataset.TITLE_WORDS;
+        return words[ThreadLocalRandom.current().nextInt(words.length)].toLowerCase();
+    }
+}
@@ -0,0 +1,136 @@
+package ru.yandex.practicum.filmorate.bench;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.IntFunction;
+
+//Сравнивает пропускную способность и p99 задержки приложения на платформенных и виртуальных потоках.
+//Оба режима запускаются по очереди на одинаковых данных, клиенты — виртуальные потоки с HttpClient
+public final class LoadTest {
+    private static final String URL = "jdbc:h2:mem:filmorate_load;DB_CLOSE_DELAY=-1";
+    private static final Map<String, IntFunction<String>> ENDPOINTS = Map.of(
+            "popular", id -> "/films/popular?count=10",
+            "feed", id -> "/users/" + id + "/feed?limit=20",
+            "recommendations", id -> "/users/" + id + "/recommendations");
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int size = Integer.getInteger("load.size", 10_000);
+        int concurrency = Integer.getInteger("load.concurrency", 500);
+        Duration duration = Duration.ofSeconds(Integer.getInteger("load.seconds", 30));
+        Duration warmup = Duration.ofSeconds(Integer.getInteger("load.warmup-seconds", 10));
+
+        System.out.printf("size=%d concurrency=%d duration=%ds%n", size, concurrency, duration.toSeconds());
+        System.out.printf("%-10s %-16s %12s %10s %10s %8s%n", "mode", "endpoint", "req/s", "p50, мс", "p99, мс", "errors");
+        for (boolean virtual : new boolean[]{false, true}) {
+            BenchmarkDataset.seed(URL, size);
+            try (ConfigurableApplicationContext context = start(virtual)) {
+                int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+                for (Map.Entry<String, IntFunction<String>> endpoint : ENDPOINTS.entrySet()) {
+                    run(port, endpoint.getValue(), size, concurrency, warmup);
+                    Result result = run(port, endpoint.getValue(), size, concurrency, duration);
+                    System.out.printf("%-10s %-16s %12.0f %10.2f %10.2f %8d%n", virtual ? "virtual" : "platform",
+                            endpoint.getKey(), result.throughput(), result.percentile(0.5), result.percentile(0.99),
+                            result.errors());
+                }
+            }
+        }
+    }
+
+    private static ConfigurableApplicationContext start(boolean virtual) {
+        SpringApplicationBuilder builder = new SpringApplicationBuilder(FilmorateApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.datasource.url=" + URL,
+                        "filmorate.likes.reconcile.initial-delay-ms=86400000",
+                        "logging.level.root=WARN");
+        if (virtual) {
+            builder.profiles("virtual");
+        }
+        return builder.run();
+    }
+
+    private static Result run(int port, IntFunction<String> path, int size, int concurrency, Duration duration)
+            throws Exception {
+        HttpClient client = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        long deadline = System.nanoTime() + duration.toNanos();
+        List<Future<long[]>> workers = new ArrayList<>(concurrency);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < concurrency; i++) {
+                workers.add(executor.submit(() -> {
+                    long[] latencies = new long[1024];
+                    int count = 0;
+                    int errors = 0;
+                    while (System.nanoTime() < deadline) {
+                        int id = ThreadLocalRandom.current().nextInt(1, size + 1);
+                        HttpRequest request = HttpRequest.newBuilder(
+                                URI.create("http://localhost:" + port + path.apply(id))).build();
+                        long start = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() != 200) {
+                                errors++;
+                                continue;
+                            }
+                        } catch (Exception e) {
+                            errors++;
+                            continue;
+                        }
+                        if (count == latencies.length) {
+                            latencies = Arrays.copyOf(latencies, count * 2);
+                        }
+                        latencies[count++] = System.nanoTime() - start;
+                    }
+                    long[] result = Arrays.copyOf(latencies, count + 1);
+                    result[count] = errors;
+                    return result;
+                }));
+            }
+        }
+
+        long[] all = new long[0];
+        long errors = 0;
+        for (Future<long[]> worker : workers) {
+            long[] latencies = worker.get();
+            errors += latencies[latencies.length - 1];
+            int offset = all.length;
+            all = Arrays.copyOf(all, offset + latencies.length - 1);
+            System.arraycopy(latencies, 0, all, offset, latencies.length - 1);
+        }
+        Arrays.sort(all);
+        return new Result(all, errors, duration);
+    }
+
+    private record Result(long[] latencies, long errors, Duration duration) {
+        double throughput() {
+            return latencies.length / (duration.toNanos() / 1e9);
+        }
+
+        double percentile(double p) {
+            if (latencies.length == 0) {
+                return 0;
+            }
+            return latencies[(int) Math.min(latencies.length - 1, Math.ceil(p * latencies.length) - 1)] / 1e6;
+        }
+    }
+}
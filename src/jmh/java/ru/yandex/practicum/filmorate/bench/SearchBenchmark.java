@@ -0,0 +1,48 @@
+package ru.yandex.practicum.filmorate.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.service.FilmService;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+public class SearchBenchmark {
+    private FilmService filmService;
+
+    @Setup
+    public void setUp(FilmorateState state) {
+        filmService = state.bean(FilmService.class);
+    }
+
+    @Benchmark
+    public List<Film> searchByTitle(FilmorateState state) {
+        return filmService.searchFilmsByTitle(state.randomWord() + " " + state.randomWord());
+    }
+
+    @Benchmark
+    public List<Film> searchByDirector() {
+        return filmService.searchFilmsByDirector("звягинцев 1");
+    }
+
+    @Benchmark
+    public List<Film> searchByTitleAndDirector(FilmorateState state) {
+        String query = state.randomWord() + " " + state.randomWord();
+        return filmService.searchFilmsByTitleAndDirector(query, query);
+    }
+}
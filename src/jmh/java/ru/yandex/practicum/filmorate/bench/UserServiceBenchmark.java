@@ -0,0 +1,49 @@
+package ru.yandex.practicum.filmorate.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.RecommendationService;
+import ru.yandex.practicum.filmorate.service.UserService;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+public class UserServiceBenchmark {
+    private UserService userService;
+    private RecommendationService recommendationService;
+
+    @Setup
+    public void setUp(FilmorateState state) {
+        userService = state.bean(UserService.class);
+        recommendationService = state.bean(RecommendationService.class);
+    }
+
+    @Benchmark
+    public List<User> getCommonFriends(FilmorateState state) {
+        //Друзья пользователя — это id + 7, id + 14, id + 21, поэтому с пользователем id + 7 у него два общих друга
+        int userId = state.randomId();
+        return userService.getCommonFriends(userId, 1 + (userId - 1 + 7) % state.size);
+    }
+
+    @Benchmark
+    public Collection<Film> getRecommendations(FilmorateState state) {
+        return recommendationService.getRecommendations(state.randomId());
+    }
+}
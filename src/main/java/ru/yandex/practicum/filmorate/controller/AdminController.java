@@ -0,0 +1,43 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import ru.yandex.practicum.filmorate.service.LikesCountReconcileJob;
+import ru.yandex.practicum.filmorate.storage.ConnectionPoolMonitor;
+import ru.yandex.practicum.filmorate.storage.QueryCounter;
+import ru.yandex.practicum.filmorate.storage.film.FilmCache;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/admin")
+@RequiredArgsConstructor
+public class AdminController {
+    private final LikesCountReconcileJob likesCountReconcileJob;
+    private final FilmCache filmCache;
+    private final QueryCounter queryCounter;
+    private final ConnectionPoolMonitor connectionPoolMonitor;
+
+    @PostMapping("/films/likes/reconcile")
+    public Map<String, Integer> reconcileLikesCount() {
+        return Map.of("repairedFilms", likesCountReconcileJob.reconcile());
+    }
+
+    @GetMapping("/cache/films")
+    public FilmCache.Stats getFilmCacheStats() {
+        return filmCache.getStats();
+    }
+
+    @GetMapping("/queries")
+    public QueryCounter.Stats getQueryStats() {
+        return queryCounter.getStats();
+    }
+
+    @GetMapping("/pool")
+    public ConnectionPoolMonitor.Stats getPoolStats() {
+        return connectionPoolMonitor.getStats();
+    }
+}
@@ -1,13 +1,16 @@
 package ru.yandex.practicum.filmorate.controller;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import ru.yandex.practicum.filmorate.model.feed.Event;
 import ru.yandex.practicum.filmorate.service.EventService;
-import ru.yandex.practicum.filmorate.service.UserService;
+import ru.yandex.practicum.filmorate.service.FeedStreamService;
 
 import java.util.List;
 
@@ -16,11 +19,17 @@ import java.util.List;
 @RequiredArgsConstructor
 public class EventController {
     private final EventService eventService;
-    private final UserService userService;
+    private final FeedStreamService feedStreamService;
 
     @GetMapping("/{id}/feed")
-    public List<Event> getFeed(@PathVariable int id) {
-        userService.getUserById(id);
-        return eventService.getEventsByUserId(id);
+    public List<Event> getFeed(@PathVariable int id,
+                               @RequestParam(required = false) Integer before,
+                               @RequestParam(required = false) Integer limit) {
+        return eventService.getEventsByUserId(id, before, limit);
     }
-}
\ No newline at end of file
+
+    @GetMapping(value = "/{id}/feed/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamFeed(@PathVariable int id) {
+        return feedStreamService.subscribe(id);
+    }
+}
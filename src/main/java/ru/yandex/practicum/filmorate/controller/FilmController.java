@@ -2,24 +2,34 @@ package ru.yandex.practicum.filmorate.controller;
 
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmSuggestion;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
 import ru.yandex.practicum.filmorate.service.FilmService;
 import ru.yandex.practicum.filmorate.storage.film.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.film.FilmFilter;
 
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/films")
 public class FilmController {
     private final FilmService filmService;
     private final FilmDbStorage filmDbStorage;
+    private final NdjsonWriter ndjsonWriter;
 
     @Autowired
-    public FilmController(FilmService filmService, FilmDbStorage filmDbStorage) {
+    public FilmController(FilmService filmService, FilmDbStorage filmDbStorage, NdjsonWriter ndjsonWriter) {
         this.filmService = filmService;
         this.filmDbStorage = filmDbStorage;
+        this.ndjsonWriter = ndjsonWriter;
     }
 
     @PostMapping
@@ -36,9 +46,26 @@ public class FilmController {
         return updatedFilm;
     }
 
+    //Без параметров отдаём весь список, с after/limit — страницу по возрастанию id
     @GetMapping
-    public List<Film> getAllFilms() {
-        return filmService.getAllFilms();
+    public List<Film> getAllFilms(@RequestParam(required = false) Integer after,
+                                  @RequestParam(required = false) Integer limit) {
+        if (after == null && limit == null) {
+            return filmService.getAllFilms();
+        }
+        return filmService.getFilmsPage(after, limit);
+    }
+
+    @GetMapping(params = "format=ndjson", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllFilms(@RequestParam(required = false) Integer after) {
+        return ndjsonWriter.<Film>stream(consumer -> filmService.streamFilms(after, consumer));
+    }
+
+    //Лёгкие подсказки для поиска по мере ввода: только id и название, самые популярные первыми
+    @GetMapping("/suggest")
+    public List<FilmSuggestion> suggestFilms(@RequestParam String prefix,
+                                             @RequestParam(defaultValue = "10") int limit) {
+        return filmService.suggestFilms(prefix, limit);
     }
 
     @GetMapping("/{id}")
@@ -63,13 +90,33 @@ public class FilmController {
         filmService.removeLike(id, userId);
     }
 
-    //Получаем список популярных фильмов
+    //Ответ приходит после фиксации пачки, в которую попали операции запроса
+    @PostMapping("/likes:batch")
+    public void applyLikesBatch(@RequestBody List<LikeOperation> operations) {
+        filmService.applyLikesBatch(operations);
+    }
+
+    //Получаем список популярных фильмов. Списки значений одного фильтра объединяются через ИЛИ, разные фильтры — через И
     @GetMapping("/popular")
     public List<Film> getPopularFilms(
             @RequestParam(defaultValue = "10") int count,
             @RequestParam(required = false) Integer genreId,
-            @RequestParam(required = false) Integer year) {
-        return filmService.getPopularFilms(count, genreId, year);
+            @RequestParam(required = false) Integer year,
+            @RequestParam(required = false) Set<Integer> genreIds,
+            @RequestParam(required = false) Set<Integer> mpaIds,
+            @RequestParam(required = false) Set<Integer> directorIds,
+            @RequestParam(required = false) Integer yearFrom,
+            @RequestParam(required = false) Integer yearTo) {
+        Set<Integer> genres = new HashSet<>(genreIds == null ? Set.of() : genreIds);
+        if (genreId != null) {
+            genres.add(genreId);
+        }
+        FilmFilter filter = new FilmFilter(genres,
+                mpaIds == null ? Set.of() : mpaIds,
+                directorIds == null ? Set.of() : directorIds,
+                year != null ? year : yearFrom,
+                year != null ? year : yearTo);
+        return filmService.getPopularFilms(count, filter);
     }
 
     @GetMapping("/common")
@@ -42,8 +42,11 @@ public class ReviewController {
     @GetMapping
     public List<Review> getReviews(
             @RequestParam(required = false) Integer filmId,
-            @RequestParam(defaultValue = "10") int count) {
-        return reviewService.getReviews(filmId, count);
+            @RequestParam(defaultValue = "10") int count,
+            @RequestParam(required = false) Integer afterUseful,
+            @RequestParam(required = false) Integer afterId,
+            @RequestParam(defaultValue = "true") boolean withContent) {
+        return reviewService.getReviews(filmId, count, afterUseful, afterId, withContent);
     }
 
     @PutMapping("/{reviewId}/like/{userId}")
@@ -57,6 +57,14 @@ public class GlobalExceptionHandler {
         return new ErrorResponse("Объект не найден", e.getMessage());
     }
 
+    //Очередь записи переполнена (статус 429)
+    @ExceptionHandler(TooManyRequestsException.class)
+    @ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+    public ErrorResponse handleTooManyRequests(final TooManyRequestsException e) {
+        log.warn("Запрос отклонён: {}", e.getMessage());
+        return new ErrorResponse("Слишком много запросов", e.getMessage());
+    }
+
     //Ловим все необработанные исключения (статус 500)
     @ExceptionHandler({Exception.class, InternalServerException.class})
     @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -0,0 +1,19 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ru.yandex.practicum.filmorate.model.feed.EventOperation;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LikeOperation {
+    private Integer filmId;
+    private Integer userId;
+    private EventOperation operation;
+
+    public boolean isAdd() {
+        return operation == EventOperation.ADD;
+    }
+}
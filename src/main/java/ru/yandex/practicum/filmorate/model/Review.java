@@ -1,5 +1,6 @@
 package ru.yandex.practicum.filmorate.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import lombok.Builder;
@@ -7,7 +8,7 @@ import lombok.Data;
 import lombok.EqualsAndHashCode;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 @EqualsAndHashCode(of = {"reviewId"})
 public class Review {
     private int reviewId;
@@ -18,7 +19,9 @@ public class Review {
     @NotNull(message = "ID пользователя обязателен")
     private Integer userId;
 
+    //В списках без текста отзывов поле не выводится
     @NotBlank(message = "Отзыв не может быть пустым")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     private String content;
 
     @NotNull(message = "Тип отзыва должен быть указан")
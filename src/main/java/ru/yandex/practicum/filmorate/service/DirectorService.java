@@ -1,10 +1,12 @@
 package ru.yandex.practicum.filmorate.service;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.service.events.DirectorChangedEvent;
 import ru.yandex.practicum.filmorate.storage.director.DirectorStorage;
 
 import java.util.List;
@@ -13,6 +15,7 @@ import java.util.List;
 @RequiredArgsConstructor
 public class DirectorService {
     private final DirectorStorage directorStorage;
+    private final ApplicationEventPublisher eventPublisher;
 
     public List<Director> getAllDirectors() {
         return directorStorage.getAllDirectors();
@@ -25,18 +28,23 @@ public class DirectorService {
 
     public Director addDirector(Director director) {
         validateDirector(director);
-        return directorStorage.addDirector(director);
+        Director addedDirector = directorStorage.addDirector(director);
+        eventPublisher.publishEvent(new DirectorChangedEvent(addedDirector.getId()));
+        return addedDirector;
     }
 
     public Director updateDirector(Director director) {
         validateDirector(director);
         getDirectorById(director.getId());
-        return directorStorage.updateDirector(director);
+        Director updatedDirector = directorStorage.updateDirector(director);
+        eventPublisher.publishEvent(new DirectorChangedEvent(updatedDirector.getId()));
+        return updatedDirector;
     }
 
     public void deleteDirector(int id) {
         getDirectorById(id);
         directorStorage.deleteDirector(id);
+        eventPublisher.publishEvent(new DirectorChangedEvent(id));
     }
 
     private void validateDirector(Director director) {
@@ -2,11 +2,17 @@ package ru.yandex.practicum.filmorate.service;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
 import ru.yandex.practicum.filmorate.model.feed.Event;
+import ru.yandex.practicum.filmorate.storage.event.EventFeedCache;
 import ru.yandex.practicum.filmorate.storage.event.EventStorage;
 import ru.yandex.practicum.filmorate.storage.user.UserStorage;
 
 import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
 
 @Service
 @RequiredArgsConstructor
@@ -14,15 +20,49 @@ public class EventService {
 
     private final EventStorage eventStorage;
     private final UserStorage userStorage;
+    private final EventFeedCache feedCache;
+    private final EventWriteBuffer writeBuffer;
+    private final Pagination pagination;
+    private final FeedStreamService feedStreamService;
+    private final ReentrantLock addEventLock = new ReentrantLock();
+    private int lastEventId = -1;
 
-    public List<Event> getEventsByUserId(int userId) {
-        userStorage.getUserById(userId)
-                .orElseThrow(() -> new IllegalArgumentException("Пользователь с id=" + userId + " не найден"));
-        return eventStorage.getEventsByUserId(userId);
+    //Без параметров отдаётся вся лента, как раньше; с before/limit — последние limit событий до before
+    public List<Event> getEventsByUserId(int userId, Integer before, Integer limit) {
+        if (!userStorage.existsById(userId)) {
+            throw new NotFoundException("Пользователь с id=" + userId + " не найден");
+        }
+        if (before != null && before < 1) {
+            throw new ValidationException("Параметр before должен быть положительным");
+        }
+        int beforeId = before == null ? Integer.MAX_VALUE : before;
+        if (before == null && limit == null) {
+            List<Event> events = feedCache.read(userId, beforeId, Integer.MAX_VALUE, this::loadLatest);
+            return events != null ? events : loadFromStorage(() -> eventStorage.getEventsByUserId(userId));
+        }
+
+        int pageSize = pagination.limitOrDefault(limit);
+        List<Event> events = feedCache.read(userId, beforeId, pageSize, this::loadLatest);
+        return events != null
+                ? events
+                : loadFromStorage(() -> eventStorage.getEventsByUserId(userId, beforeId, pageSize));
     }
 
+    //id выдаются здесь, чтобы событие сразу попало в ленту, а в базу записалось позже пачкой.
+    //ReentrantLock вместо synchronized: запись в базу под блокировкой не должна закреплять виртуальный поток
     public void addEvent(Event event) {
-        eventStorage.addEvent(event);
+        addEventLock.lock();
+        try {
+            if (lastEventId < 0) {
+                lastEventId = eventStorage.getMaxEventId();
+            }
+            event.setEventId(++lastEventId);
+            writeBuffer.enqueue(event);
+            feedCache.append(event);
+            feedStreamService.publish(event);
+        } finally {
+            addEventLock.unlock();
+        }
     }
 
     public void addLikeEvent(int userId, int filmId) {
@@ -33,6 +73,11 @@ public class EventService {
         addEvent(createEvent(userId, filmId, "LIKE", "REMOVE"));
     }
 
+    public void addLikeEvents(List<LikeOperation> operations) {
+        operations.forEach(operation -> addEvent(createEvent(operation.getUserId(), operation.getFilmId(), "LIKE",
+                operation.getOperation().name())));
+    }
+
     public void addFriendEvent(int userId, int friendId) {
         addEvent(createEvent(userId, friendId, "FRIEND", "ADD"));
     }
@@ -53,6 +98,17 @@ public class EventService {
         addEvent(createEvent(userId, reviewId, "REVIEW", "REMOVE"));
     }
 
+    private List<Event> loadLatest(int userId) {
+        return loadFromStorage(() -> eventStorage.getEventsByUserId(userId, Integer.MAX_VALUE,
+                feedCache.getCapacity() + 1));
+    }
+
+    //Перед чтением из базы дописываем накопленные события, чтобы ответ их не пропустил
+    private List<Event> loadFromStorage(Supplier<List<Event>> query) {
+        writeBuffer.flush();
+        return query.get();
+    }
+
     private Event createEvent(int userId, int entityId, String eventType, String operation) {
         return Event.builder()
                 .userId(userId)
@@ -0,0 +1,142 @@
+package ru.yandex.practicum.filmorate.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.model.feed.Event;
+import ru.yandex.practicum.filmorate.storage.event.EventStorage;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+//События ленты пишутся в базу пачками в фоне, а не отдельным INSERT в потоке запроса
+@Slf4j
+@Service
+public class EventWriteBuffer {
+    private final EventStorage eventStorage;
+    private final int capacity;
+    private final int flushSize;
+
+    private final Deque<Event> pending = new ArrayDeque<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final ExecutorService flushExecutor;
+
+    public EventWriteBuffer(EventStorage eventStorage,
+                            @Value("${filmorate.feed.batch.capacity:10000}") int capacity,
+                            @Value("${filmorate.feed.batch.flush-size:200}") int flushSize,
+                            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.eventStorage = eventStorage;
+        this.capacity = capacity;
+        this.flushSize = flushSize;
+        this.flushExecutor = Executors.newSingleThreadExecutor(virtualThreads
+                ? Thread.ofVirtual().name("feed-flush").factory()
+                : Thread.ofPlatform().name("feed-flush").factory());
+    }
+
+    //Вызывается под блокировкой выдачи id событий, поэтому в базу здесь не ходим: запись всегда в фоне
+    public void enqueue(Event event) {
+        int size;
+        synchronized (pending) {
+            pending.addLast(event);
+            dropOverflow();
+            size = pending.size();
+        }
+        if (size >= flushSize) {
+            requestFlush();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${filmorate.feed.batch.flush-interval-ms:200}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            List<Event> batch = drain();
+            if (!batch.isEmpty()) {
+                write(batch);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flushExecutor.shutdown();
+        flush();
+    }
+
+    private void requestFlush() {
+        if (flushRequested.compareAndSet(false, true)) {
+            flushExecutor.execute(() -> {
+                flushRequested.set(false);
+                flush();
+            });
+        }
+    }
+
+    private List<Event> drain() {
+        synchronized (pending) {
+            List<Event> batch = new ArrayList<>(pending);
+            pending.clear();
+            return batch;
+        }
+    }
+
+    private void write(List<Event> batch) {
+        try {
+            eventStorage.addEvents(batch);
+        } catch (DataIntegrityViolationException e) {
+            //Например, пользователь удалён раньше, чем его события попали в базу
+            log.warn("Не удалось записать пачку из {} событий, записываем по одному: {}", batch.size(), e.getMessage());
+            for (int i = 0; i < batch.size(); i++) {
+                Event event = batch.get(i);
+                try {
+                    eventStorage.addEvents(List.of(event));
+                } catch (DataIntegrityViolationException ex) {
+                    //Такое событие не запишется и при повторе, а его пользователя или фильма уже нет
+                    log.error("Не удалось записать событие {}: {}", event, ex.getMessage());
+                } catch (DataAccessException ex) {
+                    requeue(batch.subList(i, batch.size()), ex);
+                    return;
+                }
+            }
+        } catch (DataAccessException e) {
+            requeue(batch, e);
+        }
+    }
+
+    //Сбой базы не теряет события: они возвращаются в начало очереди и пишутся при следующем сбросе,
+    //пока очередь не переполнится
+    private void requeue(List<Event> events, DataAccessException e) {
+        log.warn("Не удалось записать {} событий, вернули их в очередь: {}", events.size(), e.getMessage());
+        synchronized (pending) {
+            for (int i = events.size() - 1; i >= 0; i--) {
+                pending.addFirst(events.get(i));
+            }
+            dropOverflow();
+        }
+    }
+
+    //Пока база недоступна, очередь не растёт дальше capacity: вытесняем самые старые события
+    private void dropOverflow() {
+        int dropped = 0;
+        while (pending.size() > capacity) {
+            pending.removeFirst();
+            dropped++;
+        }
+        if (dropped > 0) {
+            log.error("Очередь записи событий переполнена, отброшено старых событий: {}", dropped);
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package ru.yandex.practicum.filmorate.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.TooManyRequestsException;
+import ru.yandex.practicum.filmorate.model.feed.Event;
+import ru.yandex.practicum.filmorate.service.events.UserDeletedEvent;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+//Каждый подписчик обслуживается своим виртуальным потоком, поэтому ожидание медленного клиента
+//не занимает платформенный поток и не задерживает создание событий
+@Slf4j
+@Service
+public class FeedStreamService {
+    private final UserStorage userStorage;
+    private final int bufferSize;
+    private final long timeoutMs;
+    private final long heartbeatMs;
+    private final int maxSubscribers;
+
+    private final Map<Integer, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public FeedStreamService(UserStorage userStorage,
+                             @Value("${filmorate.feed.stream.buffer-size:256}") int bufferSize,
+                             @Value("${filmorate.feed.stream.timeout:PT30M}") Duration timeout,
+                             @Value("${filmorate.feed.stream.heartbeat:PT15S}") Duration heartbeat,
+                             @Value("${filmorate.feed.stream.max-subscribers:50000}") int maxSubscribers) {
+        this.userStorage = userStorage;
+        this.bufferSize = bufferSize;
+        this.timeoutMs = timeout.toMillis();
+        this.heartbeatMs = heartbeat.toMillis();
+        this.maxSubscribers = maxSubscribers;
+    }
+
+    public SseEmitter subscribe(int userId) {
+        if (!userStorage.existsById(userId)) {
+            throw new NotFoundException("Пользователь с id=" + userId + " не найден");
+        }
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            throw new TooManyRequestsException("Слишком много подписчиков ленты, повторите запрос позже");
+        }
+
+        SseEmitter emitter = createEmitter(timeoutMs);
+        Subscriber subscriber = new Subscriber(userId, emitter);
+        subscribers.computeIfAbsent(userId, k -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        emitter.onTimeout(() -> unsubscribe(subscriber));
+        emitter.onError(e -> unsubscribe(subscriber));
+        executor.execute(() -> pump(subscriber));
+        log.debug("Пользователь {} подписался на ленту, подписчиков: {}", userId, subscriberCount.get());
+        return emitter;
+    }
+
+    //Не блокирует: событие только кладётся в очереди подписчиков
+    public void publish(Event event) {
+        Set<Subscriber> userSubscribers = subscribers.get(event.getUserId());
+        if (userSubscribers != null) {
+            userSubscribers.forEach(subscriber -> subscriber.offer(event));
+        }
+    }
+
+    @EventListener
+    public void onUserDeleted(UserDeletedEvent event) {
+        Set<Subscriber> userSubscribers = subscribers.get(event.userId());
+        if (userSubscribers != null) {
+            userSubscribers.forEach(subscriber -> {
+                unsubscribe(subscriber);
+                subscriber.emitter.complete();
+            });
+        }
+    }
+
+    public int getSubscriberCount() {
+        return subscriberCount.get();
+    }
+
+    int getSubscribedUserCount() {
+        return subscribers.size();
+    }
+
+    SseEmitter createEmitter(long timeoutMs) {
+        return new SseEmitter(timeoutMs);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscribers.values().forEach(userSubscribers -> userSubscribers.forEach(subscriber -> {
+            unsubscribe(subscriber);
+            subscriber.emitter.complete();
+        }));
+        executor.shutdownNow();
+    }
+
+    private void pump(Subscriber subscriber) {
+        try {
+            while (!subscriber.isClosed()) {
+                Batch batch = subscriber.await(heartbeatMs);
+                if (batch == null) {
+                    continue;
+                }
+                if (batch.dropped() > 0) {
+                    //Клиент не успевал читать: сообщаем, сколько событий пропущено, чтобы он догрузил ленту
+                    subscriber.emitter.send(SseEmitter.event().name("overflow").data(batch.dropped()));
+                }
+                if (batch.events().isEmpty() && batch.dropped() == 0) {
+                    subscriber.emitter.send(SseEmitter.event().comment("ping"));
+                }
+                for (Event event : batch.events()) {
+                    subscriber.emitter.send(SseEmitter.event()
+                            .id(String.valueOf(event.getEventId()))
+                            .name(event.getEventType())
+                            .data(event));
+                }
+            }
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Подписчик ленты пользователя {} отключился: {}", subscriber.userId, e.getMessage());
+            subscriber.emitter.completeWithError(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            unsubscribe(subscriber);
+        }
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        if (!subscriber.close()) {
+            return;
+        }
+        subscribers.computeIfPresent(subscriber.userId, (userId, userSubscribers) -> {
+            userSubscribers.remove(subscriber);
+            return userSubscribers.isEmpty() ? null : userSubscribers;
+        });
+        subscriberCount.decrementAndGet();
+    }
+
+    private record Batch(List<Event> events, int dropped) {
+    }
+
+    //Очередь ограничена: при переполнении вытесняется самое старое событие
+    private final class Subscriber {
+        private final int userId;
+        private final SseEmitter emitter;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition notEmpty = lock.newCondition();
+        private final ArrayDeque<Event> queue = new ArrayDeque<>();
+        private int dropped;
+        private boolean closed;
+
+        private Subscriber(int userId, SseEmitter emitter) {
+            this.userId = userId;
+            this.emitter = emitter;
+        }
+
+        private void offer(Event event) {
+            lock.lock();
+            try {
+                if (closed) {
+                    return;
+                }
+                if (queue.size() == bufferSize) {
+                    queue.pollFirst();
+                    dropped++;
+                }
+                queue.addLast(event);
+                notEmpty.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        //Возвращает накопленные события, пустую пачку по истечении heartbeat или null после закрытия
+        private Batch await(long timeoutMs) throws InterruptedException {
+            lock.lock();
+            try {
+                long remaining = TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+                while (queue.isEmpty() && !closed && remaining > 0) {
+                    remaining = notEmpty.awaitNanos(remaining);
+                }
+                if (closed) {
+                    return null;
+                }
+                Batch batch = new Batch(new ArrayList<>(queue), dropped);
+                queue.clear();
+                dropped = 0;
+                return batch;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private boolean isClosed() {
+            lock.lock();
+            try {
+                return closed;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        //true, если подписчик закрыт этим вызовом
+        private boolean close() {
+            lock.lock();
+            try {
+                if (closed) {
+                    return false;
+                }
+                closed = true;
+                queue.clear();
+                notEmpty.signal();
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
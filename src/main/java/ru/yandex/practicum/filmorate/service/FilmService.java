@@ -2,45 +2,75 @@ package ru.yandex.practicum.filmorate.service;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.util.CollectionUtils;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.*;
+import ru.yandex.practicum.filmorate.model.feed.EventOperation;
+import ru.yandex.practicum.filmorate.service.events.FilmDeletedEvent;
+import ru.yandex.practicum.filmorate.service.events.FilmLikeChangedEvent;
+import ru.yandex.practicum.filmorate.service.events.FilmSavedEvent;
+import ru.yandex.practicum.filmorate.storage.ReferenceDataCache;
 import ru.yandex.practicum.filmorate.storage.director.DirectorStorage;
+import ru.yandex.practicum.filmorate.storage.film.FilmFacetIndex;
+import ru.yandex.practicum.filmorate.storage.film.FilmFilter;
+import ru.yandex.practicum.filmorate.storage.film.FilmLikesLeaderboard;
 import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
 import ru.yandex.practicum.filmorate.storage.genre.GenreStorage;
-import ru.yandex.practicum.filmorate.storage.mpa.MpaStorage;
+import ru.yandex.practicum.filmorate.storage.search.FilmSearchIndex;
 import ru.yandex.practicum.filmorate.storage.user.UserStorage;
 
 import java.time.LocalDate;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
 @Slf4j
 public class FilmService {
+    private static final int MAX_SUGGESTIONS = 50;
+
     private final FilmStorage filmStorage;
     private final UserStorage userStorage;
-    private final MpaStorage mpaStorage;
     private final GenreStorage genreStorage;
     private final DirectorStorage directorStorage;
     private final EventService eventService;
+    private final FilmLikesLeaderboard leaderboard;
+    private final ApplicationEventPublisher eventPublisher;
+    private final LikeWriteBuffer likeWriteBuffer;
+    private final Pagination pagination;
+    private final FilmSearchIndex searchIndex;
+    private final FilmFacetIndex facetIndex;
+    private final ReferenceDataCache referenceDataCache;
 
     @Autowired
     public FilmService(FilmStorage filmStorage,
                        UserStorage userStorage,
-                       MpaStorage mpaStorage,
                        GenreStorage genreStorage,
                        DirectorStorage directorStorage,
-                       EventService eventService) {
+                       EventService eventService,
+                       FilmLikesLeaderboard leaderboard,
+                       ApplicationEventPublisher eventPublisher,
+                       LikeWriteBuffer likeWriteBuffer,
+                       Pagination pagination,
+                       FilmSearchIndex searchIndex,
+                       FilmFacetIndex facetIndex,
+                       ReferenceDataCache referenceDataCache) {
         this.filmStorage = filmStorage;
         this.userStorage = userStorage;
-        this.mpaStorage = mpaStorage;
         this.genreStorage = genreStorage;
         this.directorStorage = directorStorage;
         this.eventService = eventService;
+        this.leaderboard = leaderboard;
+        this.eventPublisher = eventPublisher;
+        this.likeWriteBuffer = likeWriteBuffer;
+        this.pagination = pagination;
+        this.searchIndex = searchIndex;
+        this.facetIndex = facetIndex;
+        this.referenceDataCache = referenceDataCache;
     }
 
     public Film addFilm(Film film) {
@@ -52,13 +82,13 @@ public class FilmService {
         if (film.getDirectors() != null) {
             directorStorage.addDirectorsToFilm(savedFilm.getId(), film.getDirectors());
         }
+        eventPublisher.publishEvent(new FilmSavedEvent(savedFilm));
         return savedFilm;
     }
 
     public Film updateFilm(Film film) {
         validateFilm(film);
-        Optional<Film> foundedFilm = filmStorage.getFilmById(film.getId());
-        if (foundedFilm.isEmpty()) {
+        if (!filmStorage.existsById(film.getId())) {
             throw new NotFoundException("Фильм не найден");
         }
 
@@ -74,6 +104,7 @@ public class FilmService {
             updatedFilm.setDirectors(Collections.emptyList());
         }
 
+        eventPublisher.publishEvent(new FilmSavedEvent(updatedFilm));
         return updatedFilm;
     }
 
@@ -81,6 +112,14 @@ public class FilmService {
         return filmStorage.getAllFilms();
     }
 
+    public List<Film> getFilmsPage(Integer afterId, Integer limit) {
+        return filmStorage.getFilmsPage(pagination.afterOrDefault(afterId), pagination.limitOrDefault(limit));
+    }
+
+    public void streamFilms(Integer afterId, Consumer<List<Film>> consumer) {
+        pagination.forEachPage(pagination.afterOrDefault(afterId), filmStorage::getFilmsPage, Film::getId, consumer);
+    }
+
     public Film getFilmById(int id) {
         return filmStorage.getFilmById(id).orElseThrow(() ->
                 new NotFoundException("Фильм с id " + id + " не найден"));
@@ -90,16 +129,15 @@ public class FilmService {
         Film deletedFilm = filmStorage.getFilmById(filmId)
                 .orElseThrow(() -> new NotFoundException("Фильм с id " + filmId + " не найден"));
         filmStorage.deleteFilm(deletedFilm);
+        eventPublisher.publishEvent(new FilmDeletedEvent(filmId));
         return deletedFilm;
     }
 
     public void addLike(int filmId, int userId) {
-        Optional<Film> foundedFilm = filmStorage.getFilmById(filmId);
-        if (foundedFilm.isEmpty()) {
+        if (!filmStorage.existsById(filmId)) {
             throw new NotFoundException("Фильм не найден");
         }
-        Optional<User> foundedUser = userStorage.getUserById(userId);
-        if (foundedUser.isEmpty()) {
+        if (!userStorage.existsById(userId)) {
             throw new NotFoundException("Пользователь не найден");
         }
         eventService.addLikeEvent(userId, filmId);
@@ -108,28 +146,54 @@ public class FilmService {
         } catch (DataIntegrityViolationException e) {
             return;
         }
+        eventPublisher.publishEvent(new FilmLikeChangedEvent(filmId, userId, true));
 
         log.info("Пользователь {} поставил лайк фильму {}", userId, filmId);
     }
 
     public void removeLike(int filmId, int userId) {
-        Optional<Film> foundedFilm = filmStorage.getFilmById(filmId);
-        if (foundedFilm.isEmpty()) {
+        if (!filmStorage.existsById(filmId)) {
             throw new NotFoundException("Фильм не найден");
         }
-        Optional<User> foundedUser = userStorage.getUserById(userId);
-        if (foundedUser.isEmpty()) {
+        if (!userStorage.existsById(userId)) {
             throw new NotFoundException("Пользователь не найден");
         }
-        filmStorage.removeLike(filmId, userId);
+        if (filmStorage.removeLike(filmId, userId)) {
+            eventPublisher.publishEvent(new FilmLikeChangedEvent(filmId, userId, false));
+        }
 
         eventService.removeLikeEvent(userId, filmId);
 
         log.info("Пользователь {} удалил лайк у фильма {}", userId, filmId);
     }
 
-    public List<Film> getPopularFilms(int count, Integer genreId, Integer year) {
-        List<Film> films = filmStorage.getPopularFilmsWithFilters(count, genreId, year);
+    public void applyLikesBatch(List<LikeOperation> operations) {
+        if (CollectionUtils.isEmpty(operations)) {
+            throw new ValidationException("Пачка лайков не может быть пустой.");
+        }
+        for (LikeOperation operation : operations) {
+            if (operation == null || operation.getFilmId() == null || operation.getUserId() == null) {
+                throw new ValidationException("В операции с лайком должны быть указаны фильм и пользователь.");
+            }
+            if (operation.getOperation() != EventOperation.ADD && operation.getOperation() != EventOperation.REMOVE) {
+                throw new ValidationException("Операция с лайком может быть только ADD или REMOVE.");
+            }
+            if (!filmStorage.existsById(operation.getFilmId())) {
+                throw new NotFoundException("Фильм с id " + operation.getFilmId() + " не найден");
+            }
+            if (!userStorage.existsById(operation.getUserId())) {
+                throw new NotFoundException("Пользователь с id " + operation.getUserId() + " не найден");
+            }
+        }
+        likeWriteBuffer.enqueue(operations);
+        log.info("Принята пачка из {} операций с лайками", operations.size());
+    }
+
+    public List<Film> getPopularFilms(int count, FilmFilter filter) {
+        List<Integer> filmIds = filter.isEmpty()
+                ? leaderboard.getTopFilmIds(count, filmId -> true)
+                : leaderboard.getTopFilmIds(count, facetIndex.match(filter));
+        List<Film> films = filmStorage.getFilmsByIds(filmIds);
 
         films.forEach(film -> {
             if (film.getGenres() == null) {
@@ -160,8 +224,9 @@ public class FilmService {
 
     public List<Film> getFilmsByDirector(int directorId, String sortBy) {
 
-        directorStorage.getDirectorById(directorId)
-                .orElseThrow(() -> new NotFoundException("Режиссёр с id " + directorId + " не найден"));
+        if (referenceDataCache.getDirectors(List.of(directorId)).isEmpty()) {
+            throw new NotFoundException("Режиссёр с id " + directorId + " не найден");
+        }
 
         List<Film> films;
         if (sortBy.equals("year")) {
@@ -172,33 +237,35 @@ public class FilmService {
             throw new ValidationException("Неправильный параметр сортировки: " + sortBy);
         }
 
-        films.forEach(film -> {
-            List<Director> directors = directorStorage.getDirectorsByFilmId(film.getId());
-            film.setDirectors(directors != null ? directors : Collections.emptyList());
-        });
-
         return films;
     }
 
     public List<Film> searchFilmsByTitle(String query) {
-        List<Film> films = filmStorage.searchFilmsByTitle(query);
+        List<Film> films = filmStorage.getFilmsByIds(searchIndex.searchByTitle(query));
         initEmptyCollections(films);
         return films;
     }
 
     public List<Film> searchFilmsByDirector(String query) {
-        List<Film> films = filmStorage.searchFilmsByDirector(query);
+        List<Film> films = filmStorage.getFilmsByIds(searchIndex.searchByDirector(query));
         initEmptyCollections(films);
         return films;
     }
 
 
     public List<Film> searchFilmsByTitleAndDirector(String title, String directorName) {
-        List<Film> films = filmStorage.searchFilmsByTitleAndDirector(title, directorName);
+        List<Film> films = filmStorage.getFilmsByIds(searchIndex.searchByTitleOrDirector(title, directorName));
         initEmptyCollections(films);
         return films;
     }
 
+    public List<FilmSuggestion> suggestFilms(String prefix, int limit) {
+        if (limit < 1 || limit > MAX_SUGGESTIONS) {
+            throw new ValidationException("Параметр limit должен быть от 1 до " + MAX_SUGGESTIONS);
+        }
+        return searchIndex.suggest(prefix, limit);
+    }
+
     private void initEmptyCollections(List<Film> films) {
         films.forEach(film -> {
             if (film.getGenres() == null) {
@@ -210,12 +277,13 @@ public class FilmService {
         });
     }
 
+    //Жанры, рейтинг и режиссёры проверяются по кэшу справочников и заменяются его экземплярами
     private void validateFilm(Film film) {
         if (film.getReleaseDate().isBefore(LocalDate.of(1895, 12, 28))) {
             throw new ValidationException("Дата релиза должна быть не раньше 28 декабря 1895 года.");
         }
         if (film.getMpa() != null) {
-            MpaRating mpaRating = mpaStorage.getMpaRatingById(film.getMpa().getId())
+            MpaRating mpaRating = referenceDataCache.getMpaRating(film.getMpa().getId())
                     .orElseThrow(() -> new NotFoundException("Передан несуществующий id рейтинга"));
             film.setMpa(mpaRating);
         } else {
@@ -225,13 +293,16 @@ public class FilmService {
         if (!CollectionUtils.isEmpty(film.getGenres())) {
             Set<Integer> genreIds = film.getGenres().stream()
                     .map(Genre::getId)
-                    .collect(Collectors.toSet());
+                    .collect(Collectors.toCollection(TreeSet::new));
 
-            List<Genre> validGenres = genreStorage.getGenresByIds(new ArrayList<>(genreIds));
+            List<Genre> validGenres = genreIds.stream()
+                    .map(referenceDataCache::getGenre)
+                    .flatMap(Optional::stream)
+                    .toList();
             if (validGenres.size() != genreIds.size()) {
                 throw new NotFoundException("Некоторые жанры не найдены.");
             }
-            film.setGenres(validGenres.stream().sorted().toList());
+            film.setGenres(validGenres);
         } else {
             film.setGenres(Collections.emptyList());
         }
@@ -239,12 +310,14 @@ public class FilmService {
         if (!CollectionUtils.isEmpty(film.getDirectors())) {
             List<Integer> directorIds = film.getDirectors().stream()
                     .map(Director::getId)
+                    .distinct()
                     .toList();
 
-            List<Director> existingDirectors = directorStorage.getDirectorsByIds(directorIds);
+            List<Director> existingDirectors = referenceDataCache.getDirectors(directorIds);
             if (existingDirectors.size() != directorIds.size()) {
                 throw new NotFoundException("Некоторые режиссеры не найдены.");
             }
+            film.setDirectors(existingDirectors);
         }
     }
 }
\ No newline at end of file
@@ -4,21 +4,21 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Genre;
-import ru.yandex.practicum.filmorate.storage.genre.GenreStorage;
+import ru.yandex.practicum.filmorate.storage.ReferenceDataCache;
 
 import java.util.List;
 
 @Service
 @RequiredArgsConstructor
 public class GenreService {
-    private final GenreStorage genreStorage;
+    private final ReferenceDataCache referenceDataCache;
 
     public List<Genre> getAllGenres() {
-        return genreStorage.getAllGenres();
+        return referenceDataCache.getAllGenres();
     }
 
     public Genre getGenreById(int id) {
-        return genreStorage.getGenreById(id)
+        return referenceDataCache.getGenre(id)
                 .orElseThrow(() -> new NotFoundException("Жанр с id " + id + " не найден"));
     }
 }
\ No newline at end of file
@@ -0,0 +1,245 @@
+package ru.yandex.practicum.filmorate.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.exception.InternalServerException;
+import ru.yandex.practicum.filmorate.exception.TooManyRequestsException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
+import ru.yandex.practicum.filmorate.service.events.FilmLikeChangedEvent;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+//Операции копятся в очереди и пишутся пачкой одной транзакцией, но запрос ждёт фиксации своей пачки:
+//принятые лайки уже лежат в базе и не теряются при падении приложения
+@Slf4j
+@Service
+public class LikeWriteBuffer {
+    private final FilmStorage filmStorage;
+    private final EventService eventService;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int capacity;
+    private final int flushSize;
+    private final long enqueueTimeoutMs;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notFull = lock.newCondition();
+    private final Map<LikeKey, LikeOperation> pending = new LinkedHashMap<>();
+    //Завершается, когда пачка с операциями, ожидающими сейчас в очереди, записана; значение — незаписанные пары
+    private CompletableFuture<Set<LikeKey>> pendingWritten = new CompletableFuture<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final ExecutorService flushExecutor;
+
+    public LikeWriteBuffer(FilmStorage filmStorage,
+                           EventService eventService,
+                           TransactionTemplate transactionTemplate,
+                           ApplicationEventPublisher eventPublisher,
+                           @Value("${filmorate.likes.batch.capacity:10000}") int capacity,
+                           @Value("${filmorate.likes.batch.flush-size:500}") int flushSize,
+                           @Value("${filmorate.likes.batch.enqueue-timeout-ms:2000}") long enqueueTimeoutMs,
+                           @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.filmStorage = filmStorage;
+        this.eventService = eventService;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.capacity = capacity;
+        this.flushSize = flushSize;
+        this.enqueueTimeoutMs = enqueueTimeoutMs;
+        //Сброс по-прежнему идёт в одном потоке, но в режиме виртуальных потоков это виртуальный поток
+        this.flushExecutor = Executors.newSingleThreadExecutor(virtualThreads
+                ? Thread.ofVirtual().name("like-flush").factory()
+                : Thread.ofPlatform().name("like-flush").factory());
+    }
+
+    public void enqueue(List<LikeOperation> operations) {
+        //Повторная операция над той же парой заменяет предыдущую и места в очереди не занимает
+        Map<LikeKey, LikeOperation> incoming = new LinkedHashMap<>();
+        operations.forEach(operation ->
+                incoming.put(new LikeKey(operation.getFilmId(), operation.getUserId()), operation));
+        if (incoming.isEmpty()) {
+            return;
+        }
+        if (incoming.size() > capacity) {
+            throw new ValidationException("Пачка лайков не может быть больше " + capacity + " операций.");
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(enqueueTimeoutMs);
+        CompletableFuture<Set<LikeKey>> written;
+        int size;
+        lock.lock();
+        try {
+            //Место проверяем сразу для всей пачки: при отказе в очереди не должно остаться её части
+            while (pending.size() + newKeys(incoming) > capacity) {
+                requestFlush();
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    throw new TooManyRequestsException("Очередь записи лайков переполнена, повторите запрос позже");
+                }
+                notFull.awaitNanos(remaining);
+            }
+            incoming.forEach((key, operation) -> {
+                pending.remove(key);
+                pending.put(key, operation);
+            });
+            written = pendingWritten;
+            size = pending.size();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TooManyRequestsException("Запись лайков прервана");
+        } finally {
+            lock.unlock();
+        }
+
+        if (size >= flushSize) {
+            requestFlush();
+        }
+        awaitWritten(written, incoming.keySet());
+    }
+
+    @Scheduled(fixedDelayString = "${filmorate.likes.batch.flush-interval-ms:100}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            Batch batch = drain();
+            if (batch.operations().isEmpty()) {
+                batch.written().complete(Set.of());
+                return;
+            }
+            try {
+                batch.written().complete(write(batch.operations()));
+            } catch (RuntimeException e) {
+                log.error("Не удалось записать пачку из {} лайков: {}", batch.operations().size(), e.getMessage());
+                batch.written().completeExceptionally(e);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    //Новые операции после остановки не принимаются, а уже поставленные дописываются до закрытия пула соединений
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        flushExecutor.shutdown();
+        if (!flushExecutor.awaitTermination(enqueueTimeoutMs, TimeUnit.MILLISECONDS)) {
+            log.warn("Фоновая запись лайков не завершилась за {} мс", enqueueTimeoutMs);
+        }
+        flush();
+    }
+
+    int pendingSize() {
+        lock.lock();
+        try {
+            return pending.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void awaitWritten(CompletableFuture<Set<LikeKey>> written, Set<LikeKey> keys) {
+        Set<LikeKey> failed;
+        try {
+            failed = written.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InternalServerException("Ожидание записи лайков прервано");
+        } catch (ExecutionException e) {
+            throw new InternalServerException("Не удалось записать лайки: " + e.getCause().getMessage());
+        }
+        List<LikeKey> notWritten = keys.stream().filter(failed::contains).toList();
+        if (!notWritten.isEmpty()) {
+            throw new InternalServerException("Не удалось записать лайки: " + notWritten);
+        }
+    }
+
+    private void requestFlush() {
+        if (flushRequested.compareAndSet(false, true)) {
+            flushExecutor.execute(() -> {
+                flushRequested.set(false);
+                flush();
+            });
+        }
+    }
+
+    private int newKeys(Map<LikeKey, LikeOperation> incoming) {
+        return (int) incoming.keySet().stream()
+                .filter(key -> !pending.containsKey(key))
+                .count();
+    }
+
+    private Batch drain() {
+        lock.lock();
+        try {
+            Batch batch = new Batch(new ArrayList<>(pending.values()), pendingWritten);
+            pending.clear();
+            pendingWritten = new CompletableFuture<>();
+            notFull.signalAll();
+            return batch;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    //Возвращает пары, операции над которыми записать не удалось
+    private Set<LikeKey> write(List<LikeOperation> batch) {
+        try {
+            publish(writeInTransaction(batch));
+            return Set.of();
+        } catch (DataAccessException e) {
+            //Одна неудачная операция не должна терять всю пачку, поэтому повторяем их по одной
+            log.warn("Не удалось записать пачку из {} лайков, записываем по одному: {}", batch.size(), e.getMessage());
+            Set<LikeKey> failed = new HashSet<>();
+            for (LikeOperation operation : batch) {
+                try {
+                    publish(writeInTransaction(List.of(operation)));
+                } catch (DataAccessException ex) {
+                    log.error("Не удалось записать лайк {}: {}", operation, ex.getMessage());
+                    failed.add(new LikeKey(operation.getFilmId(), operation.getUserId()));
+                }
+            }
+            return failed;
+        }
+    }
+
+    private List<LikeOperation> writeInTransaction(List<LikeOperation> batch) {
+        return transactionTemplate.execute(status -> filmStorage.applyLikeOperations(batch));
+    }
+
+    //События ленты создаются только для применённых операций и после фиксации транзакции
+    private void publish(List<LikeOperation> applied) {
+        if (applied == null || applied.isEmpty()) {
+            return;
+        }
+        eventService.addLikeEvents(applied);
+        applied.forEach(operation -> eventPublisher.publishEvent(
+                new FilmLikeChangedEvent(operation.getFilmId(), operation.getUserId(), operation.isAdd())));
+        log.info("Записана пачка лайков: {} изменений", applied.size());
+    }
+
+    private record Batch(List<LikeOperation> operations, CompletableFuture<Set<LikeKey>> written) {
+    }
+
+    private record LikeKey(int filmId, int userId) {
+    }
+}
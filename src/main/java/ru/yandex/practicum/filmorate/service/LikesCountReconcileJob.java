@@ -0,0 +1,29 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.storage.film.FilmLikesLeaderboard;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class LikesCountReconcileJob {
+    private final FilmStorage filmStorage;
+    private final FilmLikesLeaderboard leaderboard;
+
+    @Scheduled(initialDelayString = "${filmorate.likes.reconcile.initial-delay-ms:0}",
+            fixedDelayString = "${filmorate.likes.reconcile.interval-ms:3600000}")
+    public int reconcile() {
+        int repaired = filmStorage.reconcileLikesCount();
+        if (repaired > 0) {
+            log.warn("Счётчик лайков расходился с таблицей лайков у {} фильмов, значения исправлены", repaired);
+            leaderboard.rebuild();
+        } else {
+            log.debug("Счётчики лайков совпадают с таблицей лайков");
+        }
+        return repaired;
+    }
+}
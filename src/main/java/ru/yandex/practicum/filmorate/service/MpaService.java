@@ -4,21 +4,21 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.MpaRating;
-import ru.yandex.practicum.filmorate.storage.mpa.MpaStorage;
+import ru.yandex.practicum.filmorate.storage.ReferenceDataCache;
 
 import java.util.List;
 
 @Service
 @RequiredArgsConstructor
 public class MpaService {
-    private final MpaStorage mpaStorage;
+    private final ReferenceDataCache referenceDataCache;
 
     public List<MpaRating> getAllMpaRatings() {
-        return mpaStorage.getAllMpaRatings();
+        return referenceDataCache.getAllMpaRatings();
     }
 
     public MpaRating getMpaRatingById(int id) {
-        return mpaStorage.getMpaRatingById(id)
+        return referenceDataCache.getMpaRating(id)
                 .orElseThrow(() -> new NotFoundException("Рейтинг MPA с id " + id + " не найден"));
     }
 }
\ No newline at end of file
@@ -0,0 +1,63 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+
+@Component
+public class Pagination {
+    private final int defaultLimit;
+    private final int maxLimit;
+    private final int streamChunkSize;
+
+    public Pagination(@Value("${filmorate.pagination.default-limit:100}") int defaultLimit,
+                      @Value("${filmorate.pagination.max-limit:1000}") int maxLimit,
+                      @Value("${filmorate.pagination.stream-chunk-size:500}") int streamChunkSize) {
+        this.defaultLimit = defaultLimit;
+        this.maxLimit = maxLimit;
+        this.streamChunkSize = streamChunkSize;
+    }
+
+    public int afterOrDefault(Integer after) {
+        if (after == null) {
+            return 0;
+        }
+        if (after < 0) {
+            throw new ValidationException("Параметр after не может быть отрицательным");
+        }
+        return after;
+    }
+
+    public int limitOrDefault(Integer limit) {
+        if (limit == null) {
+            return defaultLimit;
+        }
+        if (limit < 1 || limit > maxLimit) {
+            throw new ValidationException("Параметр limit должен быть от 1 до " + maxLimit);
+        }
+        return limit;
+    }
+
+    //Проходит по всей таблице страницами по возрастанию id, не держа в памяти больше одной страницы
+    public <T> void forEachPage(int afterId, PageLoader<T> loader, ToIntFunction<T> idExtractor,
+                                Consumer<List<T>> consumer) {
+        int after = afterId;
+        List<T> page;
+        do {
+            page = loader.load(after, streamChunkSize);
+            if (!page.isEmpty()) {
+                consumer.accept(page);
+                after = idExtractor.applyAsInt(page.getLast());
+            }
+        } while (page.size() == streamChunkSize);
+    }
+
+    @FunctionalInterface
+    public interface PageLoader<T> {
+        List<T> load(int afterId, int limit);
+    }
+}
@@ -0,0 +1,182 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.service.events.FilmDeletedEvent;
+import ru.yandex.practicum.filmorate.service.events.FilmLikeChangedEvent;
+import ru.yandex.practicum.filmorate.storage.SortedIntSet;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+@Slf4j
+@Component
+public class RecommendationEngine {
+    private final JdbcTemplate jdbcTemplate;
+    private final Similarity similarity;
+    //0 — без ограничения: как и раньше, возвращаются все рекомендованные фильмы
+    private final int maxResults;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Integer, SortedIntSet> filmsByUser = new HashMap<>();
+    private final Map<Integer, SortedIntSet> usersByFilm = new HashMap<>();
+
+    public RecommendationEngine(JdbcTemplate jdbcTemplate,
+                                @Value("${filmorate.recommendations.similarity:overlap}") String similarity,
+                                @Value("${filmorate.recommendations.max-results:0}") int maxResults) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.similarity = Similarity.valueOf(similarity.toUpperCase());
+        this.maxResults = maxResults;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        Map<Integer, SortedIntSet> loadedFilmsByUser = new HashMap<>();
+        Map<Integer, SortedIntSet> loadedUsersByFilm = new HashMap<>();
+        jdbcTemplate.query("SELECT film_id, user_id FROM film_likes", rs -> {
+            int filmId = rs.getInt("film_id");
+            int userId = rs.getInt("user_id");
+            loadedFilmsByUser.computeIfAbsent(userId, k -> new SortedIntSet()).add(filmId);
+            loadedUsersByFilm.computeIfAbsent(filmId, k -> new SortedIntSet()).add(userId);
+        });
+
+        lock.writeLock().lock();
+        try {
+            filmsByUser.clear();
+            filmsByUser.putAll(loadedFilmsByUser);
+            usersByFilm.clear();
+            usersByFilm.putAll(loadedUsersByFilm);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Данные для рекомендаций загружены: {} пользователей, {} фильмов",
+                loadedFilmsByUser.size(), loadedUsersByFilm.size());
+    }
+
+    public List<Integer> recommend(int userId) {
+        lock.readLock().lock();
+        try {
+            SortedIntSet likedFilms = filmsByUser.get(userId);
+            if (likedFilms == null || likedFilms.isEmpty()) {
+                return Collections.emptyList();
+            }
+
+            Map<Integer, Integer> commonLikes = new HashMap<>();
+            likedFilms.forEach(filmId -> usersByFilm.get(filmId).forEach(otherUserId -> {
+                if (otherUserId != userId) {
+                    commonLikes.merge(otherUserId, 1, Integer::sum);
+                }
+            }));
+            if (commonLikes.isEmpty()) {
+                return Collections.emptyList();
+            }
+
+            Map<Integer, Double> neighbours = new HashMap<>();
+            double bestScore = 0;
+            for (Map.Entry<Integer, Integer> entry : commonLikes.entrySet()) {
+                double score = similarity.score(entry.getValue(), likedFilms.size(),
+                        filmsByUser.get(entry.getKey()).size());
+                neighbours.put(entry.getKey(), score);
+                bestScore = Math.max(bestScore, score);
+            }
+
+            //Рекомендуем фильмы самых похожих пользователей, а порядок задаёт суммарная похожесть всех лайкнувших
+            Set<Integer> candidates = new HashSet<>();
+            for (Map.Entry<Integer, Double> neighbour : neighbours.entrySet()) {
+                if (bestScore - neighbour.getValue() < 1e-9) {
+                    filmsByUser.get(neighbour.getKey()).forEach(filmId -> {
+                        if (!likedFilms.contains(filmId)) {
+                            candidates.add(filmId);
+                        }
+                    });
+                }
+            }
+            Map<Integer, Double> filmScores = new HashMap<>();
+            for (int filmId : candidates) {
+                double score = 0;
+                SortedIntSet likedBy = usersByFilm.get(filmId);
+                for (Map.Entry<Integer, Double> neighbour : neighbours.entrySet()) {
+                    if (likedBy.contains(neighbour.getKey())) {
+                        score += neighbour.getValue();
+                    }
+                }
+                filmScores.put(filmId, score);
+            }
+
+            return filmScores.entrySet().stream()
+                    .sorted(Map.Entry.<Integer, Double>comparingByValue().reversed()
+                            .thenComparing(Map.Entry.<Integer, Double>comparingByKey()))
+                    .limit(maxResults > 0 ? maxResults : Long.MAX_VALUE)
+                    .map(Map.Entry::getKey)
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @EventListener
+    public void onLikeChanged(FilmLikeChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (event.added()) {
+                filmsByUser.computeIfAbsent(event.userId(), k -> new SortedIntSet()).add(event.filmId());
+                usersByFilm.computeIfAbsent(event.filmId(), k -> new SortedIntSet()).add(event.userId());
+            } else {
+                removeFromIndex(filmsByUser, event.userId(), event.filmId());
+                removeFromIndex(usersByFilm, event.filmId(), event.userId());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @EventListener
+    public void onFilmDeleted(FilmDeletedEvent event) {
+        lock.writeLock().lock();
+        try {
+            SortedIntSet likedBy = usersByFilm.remove(event.filmId());
+            if (likedBy != null) {
+                likedBy.forEach(userId -> removeFromIndex(filmsByUser, userId, event.filmId()));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeFromIndex(Map<Integer, SortedIntSet> index, int key, int value) {
+        SortedIntSet values = index.get(key);
+        if (values != null) {
+            values.remove(value);
+            if (values.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+
+    public enum Similarity {
+        OVERLAP {
+            @Override
+            double score(int common, int userLikes, int otherLikes) {
+                return common;
+            }
+        },
+        JACCARD {
+            @Override
+            double score(int common, int userLikes, int otherLikes) {
+                return (double) common / (userLikes + otherLikes - common);
+            }
+        },
+        COSINE {
+            @Override
+            double score(int common, int userLikes, int otherLikes) {
+                return common / Math.sqrt((double) userLikes * otherLikes);
+            }
+        };
+
+        abstract double score(int common, int userLikes, int otherLikes);
+    }
+}
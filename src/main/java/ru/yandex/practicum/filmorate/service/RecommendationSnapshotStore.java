@@ -0,0 +1,127 @@
+package ru.yandex.practicum.filmorate.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.service.events.FilmLikeChangedEvent;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+@Slf4j
+@Component
+public class RecommendationSnapshotStore {
+    private final RecommendationEngine recommendationEngine;
+    private final long maxStalenessMs;
+    private final long activeWindowMs;
+    private final int partitions;
+    private final Map<Integer, Snapshot> snapshots = new ConcurrentHashMap<>();
+    private final Map<Integer, Long> lastActivity = new ConcurrentHashMap<>();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public RecommendationSnapshotStore(RecommendationEngine recommendationEngine,
+                                       @Value("${filmorate.recommendations.snapshot.max-staleness:PT5M}")
+                                       Duration maxStaleness,
+                                       @Value("${filmorate.recommendations.snapshot.active-window:PT1H}")
+                                       Duration activeWindow,
+                                       @Value("${filmorate.recommendations.snapshot.partitions:8}") int partitions) {
+        this.recommendationEngine = recommendationEngine;
+        this.maxStalenessMs = maxStaleness.toMillis();
+        this.activeWindowMs = activeWindow.toMillis();
+        this.partitions = Math.max(1, partitions);
+    }
+
+    public List<Integer> getRecommendedFilmIds(int userId) {
+        long now = System.currentTimeMillis();
+        lastActivity.put(userId, now);
+
+        Snapshot snapshot = snapshots.get(userId);
+        if (snapshot != null && now - snapshot.computedAt() <= maxStalenessMs) {
+            return Arrays.stream(snapshot.filmIds()).boxed().toList();
+        }
+        //Снимка нет или он устарел — считаем на месте и сразу запоминаем
+        List<Integer> filmIds = recommendationEngine.recommend(userId);
+        store(userId, filmIds, now);
+        return filmIds;
+    }
+
+    public Optional<Long> getSnapshotAge(int userId) {
+        Snapshot snapshot = snapshots.get(userId);
+        return snapshot == null
+                ? Optional.empty()
+                : Optional.of(System.currentTimeMillis() - snapshot.computedAt());
+    }
+
+    @Scheduled(fixedDelayString = "${filmorate.recommendations.snapshot.refresh-interval-ms:60000}")
+    public void refresh() {
+        long now = System.currentTimeMillis();
+        lastActivity.entrySet().removeIf(entry -> now - entry.getValue() > activeWindowMs);
+        snapshots.keySet().removeIf(userId -> !lastActivity.containsKey(userId));
+
+        List<Integer> activeUsers = new ArrayList<>(lastActivity.keySet());
+        if (activeUsers.isEmpty()) {
+            return;
+        }
+
+        List<Callable<Integer>> tasks = new ArrayList<>();
+        int partitionSize = (activeUsers.size() + partitions - 1) / partitions;
+        for (int from = 0; from < activeUsers.size(); from += partitionSize) {
+            List<Integer> partition = activeUsers.subList(from, Math.min(from + partitionSize, activeUsers.size()));
+            tasks.add(() -> refreshPartition(partition));
+        }
+
+        int refreshed = 0;
+        try {
+            for (Future<Integer> result : executor.invokeAll(tasks)) {
+                refreshed += result.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (ExecutionException e) {
+            log.error("Не удалось обновить снимки рекомендаций", e.getCause());
+        }
+        log.debug("Снимки рекомендаций обновлены для {} активных пользователей за {} мс",
+                refreshed, System.currentTimeMillis() - now);
+    }
+
+    @EventListener
+    public void onLikeChanged(FilmLikeChangedEvent event) {
+        //Собственные лайки пользователя меняют его рекомендации сразу, такой снимок больше не годится
+        snapshots.remove(event.userId());
+        lastActivity.put(event.userId(), System.currentTimeMillis());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private int refreshPartition(List<Integer> userIds) {
+        for (int userId : userIds) {
+            store(userId, recommendationEngine.recommend(userId), System.currentTimeMillis());
+        }
+        return userIds.size();
+    }
+
+    private void store(int userId, List<Integer> filmIds, long computedAt) {
+        int[] ids = filmIds.stream().mapToInt(Integer::intValue).toArray();
+        snapshots.put(userId, new Snapshot(ids, computedAt));
+    }
+
+    private record Snapshot(int[] filmIds, long computedAt) {
+    }
+}
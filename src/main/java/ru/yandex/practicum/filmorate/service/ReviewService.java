@@ -6,7 +6,9 @@ import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.Review;
 import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.review.ReviewCursor;
 import ru.yandex.practicum.filmorate.storage.review.ReviewRepository;
+import ru.yandex.practicum.filmorate.storage.review.ReviewTopCache;
 import ru.yandex.practicum.filmorate.storage.user.UserStorage;
 
 import java.util.List;
@@ -19,71 +21,119 @@ public class ReviewService {
     private final FilmStorage filmStorage;
     private final UserStorage userStorage;
     private final EventService eventService;
+    private final ReviewUsefulCounter usefulCounter;
+    private final ReviewTopCache topCache;
 
     public Review addReview(Review review) {
         validateUserId(review.getUserId());
         validateFilmId(review.getFilmId());
         Review addedReview = repository.addReview(review);
+        topCache.invalidate(addedReview.getFilmId());
         eventService.addReviewEvent(review.getUserId(), addedReview.getReviewId());
         return addedReview;
     }
 
     public Review getReviewById(long id) {
         return repository.findReviewById(id)
+                .map(usefulCounter::withPending)
                 .orElseThrow(() -> new NotFoundException("Отзыв не найден"));
     }
 
     public Review updateReview(Review review) {
         Review updatedReview = repository.updateReview(review);
+        topCache.invalidate(updatedReview.getFilmId());
         eventService.updateReviewEvent(updatedReview.getUserId(), updatedReview.getReviewId());
-        return updatedReview;
+        return usefulCounter.withPending(updatedReview);
     }
 
     public void deleteReviewById(int id) {
         Review deleted = repository.findReviewById(id)
                 .orElseThrow(() -> new NotFoundException("Отзыв с id: " + id + " не найден."));
         repository.deleteReviewById(id);
+        usefulCounter.forget(id);
+        topCache.invalidate(deleted.getFilmId());
         eventService.removeReviewEvent(deleted.getUserId(), deleted.getReviewId());
     }
 
-    public List<Review> getReviews(Integer filmId, int count) {
+    public List<Review> getReviews(Integer filmId, int count, Integer afterUseful, Integer afterId,
+                                   boolean withContent) {
         if (count <= 0) {
             throw new IllegalArgumentException("Параметр count должен быть положительным числом");
         }
+        if ((afterUseful == null) != (afterId == null)) {
+            throw new ValidationException("Параметры afterUseful и afterId передаются вместе");
+        }
+        ReviewCursor after = afterId == null ? null : new ReviewCursor(afterUseful, afterId);
+
+        //Первая страница отзывов фильма отдаётся из кеша, полезность в нём уже учитывает незаписанные реакции
+        if (filmId != null && after == null && count <= topCache.getSize()) {
+            List<Review> top = topCache.getOrLoad(filmId, count, limit -> {
+                usefulCounter.flush();
+                return repository.findFilmById(filmId, null, limit, true);
+            });
+            if (!withContent) {
+                top.forEach(review -> review.setContent(null));
+            }
+            return top;
+        }
+
+        //Сортировка идёт по полезности в базе, поэтому сначала дописываем накопленные изменения
+        usefulCounter.flush();
         if (filmId == null) {
-            return repository.findAll(count);
+            return repository.findAll(after, count, withContent);
         }
-        return repository.findFilmById(filmId, count);
+        return repository.findFilmById(filmId, after, count, withContent);
     }
 
     public void addLike(int reviewId, int userId) {
-        repository.addLike(reviewId, userId);
-        repository.updateReviewUseful(reviewId);
+        applyReaction(reviewId, repository.setReaction(reviewId, userId, true), true);
     }
 
     public void addDislike(int reviewId, int userId) {
-        repository.addDislike(reviewId, userId);
-        repository.updateReviewUseful(reviewId);
+        applyReaction(reviewId, repository.setReaction(reviewId, userId, false), false);
     }
 
     public void removeReaction(int reviewId, int userId) {
-        repository.removeReaction(reviewId, userId);
-        repository.updateReviewUseful(reviewId);
+        applyReaction(reviewId, repository.removeReaction(reviewId, userId), null);
+    }
+
+    //Полезность меняется на разницу между новой и прежней реакцией, без пересчёта всех реакций отзыва
+    private void applyReaction(int reviewId, Boolean previous, Boolean current) {
+        int delta = score(current) - score(previous);
+        if (delta == 0) {
+            return;
+        }
+        usefulCounter.add(reviewId, delta);
+        //Отзыв не из кеша, ставший полезнее, может войти в первую страницу своего фильма
+        if (!topCache.applyDelta(reviewId, delta) && delta > 0 && !topCache.isEmpty()) {
+            repository.findReviewById(reviewId)
+                    .map(usefulCounter::withPending)
+                    .ifPresent(topCache::offer);
+        }
+    }
+
+    private static int score(Boolean isLike) {
+        if (isLike == null) {
+            return 0;
+        }
+        return isLike ? 1 : -1;
     }
 
     private void validateUserId(Integer id) {
         if (id == null) {
             throw new ValidationException("Id пользователя не может быть null.");
         }
-        userStorage.getUserById(id).orElseThrow(() ->
-                new NotFoundException("Пользователь с id=" + id + " не найден."));
+        if (!userStorage.existsById(id)) {
+            throw new NotFoundException("Пользователь с id=" + id + " не найден.");
+        }
     }
 
     private void validateFilmId(Integer id) {
         if (id == null) {
             throw new ValidationException("Id фильма не может быть null.");
         }
-        filmStorage.getFilmById(id).orElseThrow(() ->
-                new NotFoundException("Фильм с id=" + id + " не найден."));
+        if (!filmStorage.existsById(id)) {
+            throw new NotFoundException("Фильм с id=" + id + " не найден.");
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,76 @@
+package ru.yandex.practicum.filmorate.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.model.Review;
+import ru.yandex.practicum.filmorate.storage.review.ReviewRepository;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+//Изменения полезности копятся в памяти и записываются в базу пачкой одним UPDATE на отзыв.
+//merge в ConcurrentHashMap блокирует только корзину отзыва, поэтому реакции на разные отзывы не мешают друг другу
+@Slf4j
+@Service
+public class ReviewUsefulCounter {
+    private final ReviewRepository repository;
+    private final Map<Integer, Integer> pending = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    public ReviewUsefulCounter(ReviewRepository repository) {
+        this.repository = repository;
+    }
+
+    public void add(int reviewId, int delta) {
+        if (delta != 0) {
+            pending.merge(reviewId, delta, (previous, added) -> previous + added == 0 ? null : previous + added);
+        }
+    }
+
+    public void forget(int reviewId) {
+        pending.remove(reviewId);
+    }
+
+    //Значение из базы плюс ещё не записанные изменения
+    public Review withPending(Review review) {
+        review.setUseful(review.getUseful() + pending.getOrDefault(review.getReviewId(), 0));
+        return review;
+    }
+
+    @Scheduled(fixedDelayString = "${filmorate.reviews.useful.flush-interval-ms:500}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            Map<Integer, Integer> batch = new HashMap<>();
+            for (Integer reviewId : List.copyOf(pending.keySet())) {
+                Integer delta = pending.remove(reviewId);
+                if (delta != null) {
+                    batch.put(reviewId, delta);
+                }
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            try {
+                repository.addUseful(batch);
+            } catch (DataAccessException e) {
+                //Возвращаем изменения в очередь, чтобы записать их при следующей попытке
+                log.warn("Не удалось записать полезность {} отзывов: {}", batch.size(), e.getMessage());
+                batch.forEach(this::add);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+}
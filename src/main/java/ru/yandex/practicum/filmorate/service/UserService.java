@@ -2,30 +2,50 @@ package ru.yandex.practicum.filmorate.service;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.events.FilmLikeChangedEvent;
+import ru.yandex.practicum.filmorate.service.events.FriendshipChangedEvent;
+import ru.yandex.practicum.filmorate.service.events.UserDeletedEvent;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.FriendshipGraph;
 import ru.yandex.practicum.filmorate.storage.user.UserStorage;
 
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
+import java.util.function.Consumer;
 
 @Service
 @Slf4j
 public class UserService {
+    private static final int MAX_FRIEND_SUGGESTIONS = 100;
+
     private final UserStorage userStorage;
     private final RecommendationService recommendationService;
     private final EventService eventService;
+    private final FilmStorage filmStorage;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Pagination pagination;
+    private final FriendshipGraph friendshipGraph;
 
     @Autowired
-    public UserService(UserStorage userStorage, RecommendationService recommendationService, EventService eventService) {
+    public UserService(UserStorage userStorage,
+                       RecommendationService recommendationService,
+                       EventService eventService,
+                       FilmStorage filmStorage,
+                       ApplicationEventPublisher eventPublisher,
+                       Pagination pagination,
+                       FriendshipGraph friendshipGraph) {
         this.userStorage = userStorage;
         this.recommendationService = recommendationService;
         this.eventService = eventService;
-
+        this.filmStorage = filmStorage;
+        this.eventPublisher = eventPublisher;
+        this.pagination = pagination;
+        this.friendshipGraph = friendshipGraph;
     }
 
     public User addUser(User user) {
@@ -33,17 +53,38 @@ public class UserService {
     }
 
     public User updateUser(User user) {
-        Optional<User> foundedUser = userStorage.getUserById(user.getId());
-        if (foundedUser.isEmpty()) {
+        if (!userStorage.existsById(user.getId())) {
             throw new NotFoundException("Отсутствует пользователь");
         }
-        return userStorage.updateUser(user);
+        //Хранилище переписывает список друзей целиком, поэтому граф дружбы получает разницу со старым списком
+        Set<Integer> oldFriendIds = new HashSet<>(toList(friendshipGraph.getFriendIds(user.getId())));
+        Set<Integer> newFriendIds = new HashSet<>();
+        user.getFriends().forEach(friendId -> newFriendIds.add(friendId.intValue()));
+        User updatedUser = userStorage.updateUser(user);
+
+        newFriendIds.stream()
+                .filter(friendId -> !oldFriendIds.contains(friendId))
+                .forEach(friendId ->
+                        eventPublisher.publishEvent(new FriendshipChangedEvent(user.getId(), friendId, true)));
+        oldFriendIds.stream()
+                .filter(friendId -> !newFriendIds.contains(friendId))
+                .forEach(friendId ->
+                        eventPublisher.publishEvent(new FriendshipChangedEvent(user.getId(), friendId, false)));
+        return updatedUser;
     }
 
     public List<User> getAllUsers() {
         return userStorage.getAllUsers();
     }
 
+    public List<User> getUsersPage(Integer afterId, Integer limit) {
+        return userStorage.getUsersPage(pagination.afterOrDefault(afterId), pagination.limitOrDefault(limit));
+    }
+
+    public void streamUsers(Integer afterId, Consumer<List<User>> consumer) {
+        pagination.forEachPage(pagination.afterOrDefault(afterId), userStorage::getUsersPage, User::getId, consumer);
+    }
+
     public User getUserById(int id) {
         return userStorage.getUserById(id).orElseThrow(() ->
                 new NotFoundException("Пользователь с id " + id + " не найден"));
@@ -52,20 +93,24 @@ public class UserService {
     public User deleteUser(Integer userId) {
         User deletedUser = userStorage.getUserById(userId)
                 .orElseThrow(() -> new NotFoundException("Пользователь с id " + userId + " не найден"));
+        //Лайки пользователя удаляются каскадно, поэтому сообщаем об их удалении отдельно
+        List<Integer> likedFilmIds = filmStorage.getFilmIdsByUserId(userId);
         userStorage.deleteUser(deletedUser);
+        eventPublisher.publishEvent(new UserDeletedEvent(userId));
+        likedFilmIds.forEach(filmId ->
+                eventPublisher.publishEvent(new FilmLikeChangedEvent(filmId, userId, false)));
         return deletedUser;
     }
 
     public void addFriend(int userId, int friendId) {
-        Optional<User> foundedUser = userStorage.getUserById(userId);
-        if (foundedUser.isEmpty()) {
+        if (!userStorage.existsById(userId)) {
             throw new NotFoundException("Отсутствует пользователь");
         }
-        Optional<User> foundedFriend = userStorage.getUserById(friendId);
-        if (foundedFriend.isEmpty()) {
+        if (!userStorage.existsById(friendId)) {
             throw new NotFoundException("Отсутствует друг");
         }
         userStorage.addFriend(userId, friendId);
+        eventPublisher.publishEvent(new FriendshipChangedEvent(userId, friendId, true));
 
         eventService.addFriendEvent(userId, friendId);
 
@@ -73,15 +118,14 @@ public class UserService {
     }
 
     public void removeFriend(int userId, int friendId) {
-        Optional<User> foundedUser = userStorage.getUserById(userId);
-        if (foundedUser.isEmpty()) {
+        if (!userStorage.existsById(userId)) {
             throw new NotFoundException("Отсутствует пользователь");
         }
-        Optional<User> foundedFriend = userStorage.getUserById(friendId);
-        if (foundedFriend.isEmpty()) {
+        if (!userStorage.existsById(friendId)) {
             throw new NotFoundException("Отсутствует друг");
         }
         userStorage.removeFriend(userId, friendId);
+        eventPublisher.publishEvent(new FriendshipChangedEvent(userId, friendId, false));
 
         eventService.removeFriendEvent(userId, friendId);
 
@@ -89,19 +133,32 @@ public class UserService {
     }
 
     public List<User> getFriends(int userId) {
-        Optional<User> foundedUser = userStorage.getUserById(userId);
-        if (foundedUser.isEmpty()) {
+        if (!userStorage.existsById(userId)) {
             throw new NotFoundException("Отсутствует пользователь");
         }
         return userStorage.getFriends(userId);
     }
 
     public List<User> getCommonFriends(int userId, int otherId) {
-        return userStorage.getCommonFriends(userId, otherId);
+        return userStorage.getUsersByIds(toList(friendshipGraph.getCommonFriendIds(userId, otherId)));
+    }
+
+    public List<User> getFriendSuggestions(int userId, int limit) {
+        if (!userStorage.existsById(userId)) {
+            throw new NotFoundException("Отсутствует пользователь");
+        }
+        if (limit < 1 || limit > MAX_FRIEND_SUGGESTIONS) {
+            throw new ValidationException("Параметр limit должен быть от 1 до " + MAX_FRIEND_SUGGESTIONS);
+        }
+        return userStorage.getUsersByIds(friendshipGraph.getSuggestedFriendIds(userId, limit));
     }
 
     public Collection<Film> getRecommendations(Integer userId) {
         Collection<Film> films = recommendationService.getRecommendations(userId);
         return new ArrayList<>(films);
     }
+
+    private static List<Integer> toList(int[] ids) {
+        return Arrays.stream(ids).boxed().toList();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,4 @@
+package ru.yandex.practicum.filmorate.service.events;
+
+public record FilmLikeChangedEvent(int filmId, int userId, boolean added) {
+}
@@ -0,0 +1,6 @@
+package ru.yandex.practicum.filmorate.service.events;
+
+import ru.yandex.practicum.filmorate.model.Film;
+
+public record FilmSavedEvent(Film film) {
+}
@@ -0,0 +1,4 @@
+package ru.yandex.practicum.filmorate.service.events;
+
+public record FriendshipChangedEvent(int userId, int friendId, boolean added) {
+}
@@ -0,0 +1,4 @@
+package ru.yandex.practicum.filmorate.service.events;
+
+public record UserDeletedEvent(int userId) {
+}
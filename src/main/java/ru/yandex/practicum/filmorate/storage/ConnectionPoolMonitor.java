@@ -0,0 +1,53 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+//Состояние пула соединений и ограничителя перед ним; без Hikari (например, во встроенной базе тестов) — нули
+@Component
+public class ConnectionPoolMonitor {
+    private final HikariDataSource pool;
+    private final ConnectionLimitingDataSource limiter;
+
+    public ConnectionPoolMonitor(DataSource dataSource) {
+        this.pool = unwrap(dataSource, HikariDataSource.class);
+        this.limiter = unwrap(dataSource, ConnectionLimitingDataSource.class);
+    }
+
+    public Stats getStats() {
+        HikariPoolMXBean mxBean = pool == null ? null : pool.getHikariPoolMXBean();
+        ConnectionPoolMetrics metrics =
+                pool != null && pool.getMetricsTrackerFactory() instanceof ConnectionPoolMetrics poolMetrics
+                        ? poolMetrics
+                        : null;
+        return new Stats(
+                pool == null ? 0 : pool.getMaximumPoolSize(),
+                mxBean == null ? 0 : mxBean.getActiveConnections(),
+                mxBean == null ? 0 : mxBean.getIdleConnections(),
+                mxBean == null ? 0 : mxBean.getThreadsAwaitingConnection(),
+                metrics == null ? 0 : metrics.getAcquisitions(),
+                metrics == null ? 0 : metrics.getTimeouts(),
+                metrics == null ? 0 : metrics.getAverageWaitMillis(),
+                metrics == null ? 0 : metrics.getMaxWaitMillis(),
+                metrics == null ? 0 : metrics.getAverageUsageMillis(),
+                limiter == null ? 0 : limiter.getActiveConnections(),
+                limiter == null ? 0 : limiter.getQueueLength());
+    }
+
+    private static <T> T unwrap(DataSource dataSource, Class<T> type) {
+        try {
+            return dataSource.isWrapperFor(type) ? dataSource.unwrap(type) : null;
+        } catch (SQLException e) {
+            return null;
+        }
+    }
+
+    public record Stats(int maxSize, int active, int idle, int pending, long acquisitions, long timeouts,
+                        double averageWaitMillis, double maxWaitMillis, double averageUsageMillis,
+                        int limiterActive, int limiterQueue) {
+    }
+}
@@ -0,0 +1,43 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+//Оборачивает пул соединений: снаружи подсчёт запросов, внутри — ограничитель числа одновременных соединений.
+//Сборщик метрик пула подключается до его запуска, потом Hikari менять его не даёт
+@Component
+public class DataSourcePostProcessor implements BeanPostProcessor {
+    private final int maxConcurrency;
+    private final Duration acquireTimeout;
+
+    public DataSourcePostProcessor(@Value("${filmorate.jdbc.max-concurrency:0}") int maxConcurrency,
+                                   @Value("${filmorate.jdbc.acquire-timeout:PT5S}") Duration acquireTimeout) {
+        this.maxConcurrency = maxConcurrency;
+        this.acquireTimeout = acquireTimeout;
+    }
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        if (bean instanceof HikariDataSource hikari
+                && hikari.getMetricsTrackerFactory() == null && hikari.getMetricRegistry() == null) {
+            hikari.setMetricsTrackerFactory(new ConnectionPoolMetrics());
+        }
+        return bean;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource && !(bean instanceof QueryCountingDataSource)) {
+            DataSource target = maxConcurrency > 0
+                    ? new ConnectionLimitingDataSource(dataSource, maxConcurrency, acquireTimeout)
+                    : dataSource;
+            return new QueryCountingDataSource(target);
+        }
+        return bean;
+    }
+}
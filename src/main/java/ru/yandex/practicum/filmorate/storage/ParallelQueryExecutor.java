@@ -0,0 +1,123 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.yandex.practicum.filmorate.exception.InternalServerException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+//Независимые запросы одного ответа выполняются параллельно на виртуальных потоках.
+//API повторяет StructuredTaskScope (в Java 21 он ещё preview): fork, затем join в пределах одного try
+@Component
+public class ParallelQueryExecutor {
+    private final boolean enabled;
+    private final long timeoutNanos;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public ParallelQueryExecutor(@Value("${filmorate.query.parallel.enabled:true}") boolean enabled,
+                                 @Value("${filmorate.query.parallel.timeout:PT5S}") Duration timeout) {
+        this.enabled = enabled;
+        this.timeoutNanos = timeout.toNanos();
+    }
+
+    //Внутри транзакции запросы выполняются последовательно: в другом потоке они получили бы другое соединение
+    //и не увидели бы незафиксированных изменений
+    public Scope open() {
+        return new Scope(enabled && !TransactionSynchronizationManager.isActualTransactionActive());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public final class Scope implements AutoCloseable {
+        private final boolean parallel;
+        private final List<Future<?>> futures = new CopyOnWriteArrayList<>();
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        private Scope(boolean parallel) {
+            this.parallel = parallel;
+        }
+
+        public <T> Supplier<T> fork(Callable<T> query) {
+            if (!parallel) {
+                T result = call(query);
+                return () -> result;
+            }
+            Callable<T> task = QueryCounter.propagate(query);
+            Future<T> future = executor.submit(() -> {
+                try {
+                    return task.call();
+                } catch (Throwable e) {
+                    //Первая ошибка отменяет остальные запросы, их результат уже не понадобится
+                    if (failure.compareAndSet(null, e)) {
+                        cancelAll();
+                    }
+                    throw e;
+                }
+            });
+            futures.add(future);
+            return () -> {
+                if (!future.isDone()) {
+                    throw new IllegalStateException("Результат запроса запрошен до вызова join()");
+                }
+                return future.resultNow();
+            };
+        }
+
+        //Ждёт все запросы не дольше общего таймаута и пробрасывает первую ошибку
+        public void join() {
+            long deadline = System.nanoTime() + timeoutNanos;
+            try {
+                for (Future<?> future : futures) {
+                    future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                }
+            } catch (ExecutionException | CancellationException e) {
+                throw propagate(failure.get() != null ? failure.get() : e.getCause());
+            } catch (TimeoutException e) {
+                cancelAll();
+                throw new QueryTimeoutException("Запросы не выполнились за "
+                        + TimeUnit.NANOSECONDS.toMillis(timeoutNanos) + " мс");
+            } catch (InterruptedException e) {
+                cancelAll();
+                Thread.currentThread().interrupt();
+                throw new InternalServerException("Ожидание запросов прервано");
+            }
+        }
+
+        @Override
+        public void close() {
+            cancelAll();
+        }
+
+        private void cancelAll() {
+            futures.forEach(future -> future.cancel(true));
+        }
+
+        private <T> T call(Callable<T> query) {
+            try {
+                return query.call();
+            } catch (Exception e) {
+                throw propagate(e);
+            }
+        }
+
+        private RuntimeException propagate(Throwable e) {
+            if (e instanceof RuntimeException runtimeException) {
+                return runtimeException;
+            }
+            if (e instanceof Error error) {
+                throw error;
+            }
+            return new InternalServerException("Ошибка при выполнении запроса: " + e.getMessage());
+        }
+    }
+}
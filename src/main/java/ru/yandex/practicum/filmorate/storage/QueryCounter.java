@@ -0,0 +1,67 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+//Считает SQL-запросы, выполненные в рамках одного HTTP-запроса, и копит общую статистику
+@Component
+public class QueryCounter {
+    private static final ThreadLocal<AtomicInteger> CURRENT = new ThreadLocal<>();
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder queries = new LongAdder();
+    private final AtomicInteger maxPerRequest = new AtomicInteger();
+
+    public static void increment() {
+        AtomicInteger counter = CURRENT.get();
+        if (counter != null) {
+            counter.incrementAndGet();
+        }
+    }
+
+    //Запросы, выполненные в другом потоке от имени текущего HTTP-запроса, засчитываются ему же
+    public static <T> Callable<T> propagate(Callable<T> task) {
+        AtomicInteger counter = CURRENT.get();
+        if (counter == null) {
+            return task;
+        }
+        return () -> {
+            CURRENT.set(counter);
+            try {
+                return task.call();
+            } finally {
+                CURRENT.remove();
+            }
+        };
+    }
+
+    public void start() {
+        CURRENT.set(new AtomicInteger());
+    }
+
+    public int finish() {
+        AtomicInteger counter = CURRENT.get();
+        CURRENT.remove();
+        if (counter == null) {
+            return 0;
+        }
+        int count = counter.get();
+        requests.increment();
+        queries.add(count);
+        maxPerRequest.accumulateAndGet(count, Math::max);
+        return count;
+    }
+
+    public Stats getStats() {
+        long requestCount = requests.sum();
+        long queryCount = queries.sum();
+        return new Stats(requestCount, queryCount, maxPerRequest.get(),
+                requestCount == 0 ? 0 : (double) queryCount / requestCount);
+    }
+
+    public record Stats(long requests, long queries, int maxPerRequest, double averagePerRequest) {
+    }
+}
@@ -0,0 +1,158 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.MpaRating;
+import ru.yandex.practicum.filmorate.service.events.DirectorChangedEvent;
+import ru.yandex.practicum.filmorate.storage.director.DirectorStorage;
+import ru.yandex.practicum.filmorate.storage.genre.GenreStorage;
+import ru.yandex.practicum.filmorate.storage.mpa.MpaStorage;
+
+import java.util.*;
+import java.util.function.IntFunction;
+import java.util.function.ToIntFunction;
+
+//Справочники меняются редко, поэтому читаются из неизменяемого снимка, который целиком заменяется при изменении.
+//Модели изменяемые, поэтому наружу отдаются копии, а не объекты снимка
+@Slf4j
+@Component
+public class ReferenceDataCache {
+    private final GenreStorage genreStorage;
+    private final MpaStorage mpaStorage;
+    private final DirectorStorage directorStorage;
+    private volatile Snapshot snapshot;
+    //Растёт при каждом изменении режиссёра: догруженные до изменения данные в снимок уже не кладутся
+    private long directorsVersion;
+
+    public ReferenceDataCache(GenreStorage genreStorage, MpaStorage mpaStorage, DirectorStorage directorStorage) {
+        this.genreStorage = genreStorage;
+        this.mpaStorage = mpaStorage;
+        this.directorStorage = directorStorage;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        directorsVersion++;
+        List<Genre> genres = genreStorage.getAllGenres();
+        List<MpaRating> ratings = mpaStorage.getAllMpaRatings();
+        Map<Integer, Director> directors = new HashMap<>();
+        directorStorage.getAllDirectors().forEach(director -> directors.put(director.getId(), director));
+
+        snapshot = new Snapshot(byId(genres, Genre::getId, Genre[]::new), List.copyOf(genres),
+                byId(ratings, MpaRating::getId, MpaRating[]::new), List.copyOf(ratings), Map.copyOf(directors));
+        log.info("Справочники загружены: {} жанров, {} рейтингов MPA, {} режиссёров",
+                genres.size(), ratings.size(), directors.size());
+    }
+
+    public List<Genre> getAllGenres() {
+        return snapshot().genreList().stream().map(ReferenceDataCache::copy).toList();
+    }
+
+    public Optional<Genre> getGenre(int id) {
+        return Optional.ofNullable(lookup(snapshot().genres(), id)).map(ReferenceDataCache::copy);
+    }
+
+    public List<MpaRating> getAllMpaRatings() {
+        return snapshot().mpaList().stream().map(ReferenceDataCache::copy).toList();
+    }
+
+    public Optional<MpaRating> getMpaRating(int id) {
+        return Optional.ofNullable(lookup(snapshot().mpa(), id)).map(ReferenceDataCache::copy);
+    }
+
+    //Возвращает найденных режиссёров в порядке запроса; отсутствующих в снимке догружает из базы
+    public List<Director> getDirectors(Collection<Integer> ids) {
+        Map<Integer, Director> cached = snapshot().directors();
+        List<Integer> missing = ids.stream().filter(id -> !cached.containsKey(id)).toList();
+        Map<Integer, Director> directors = cached;
+        if (!missing.isEmpty()) {
+            long version = directorsVersion();
+            List<Director> loaded = directorStorage.getDirectorsByIds(missing);
+            if (!loaded.isEmpty()) {
+                directors = new HashMap<>(cached);
+                for (Director director : loaded) {
+                    directors.put(director.getId(), director);
+                }
+                putDirectors(loaded, version);
+            }
+        }
+        List<Director> result = new ArrayList<>(ids.size());
+        for (Integer id : ids) {
+            Director director = directors.get(id);
+            if (director != null) {
+                result.add(copy(director));
+            }
+        }
+        return result;
+    }
+
+    @EventListener
+    public void onDirectorChanged(DirectorChangedEvent event) {
+        Optional<Director> director = directorStorage.getDirectorById(event.directorId());
+        synchronized (this) {
+            Snapshot current = snapshot();
+            Map<Integer, Director> directors = new HashMap<>(current.directors());
+            director.ifPresentOrElse(d -> directors.put(d.getId(), d), () -> directors.remove(event.directorId()));
+            snapshot = current.withDirectors(Map.copyOf(directors));
+            directorsVersion++;
+        }
+    }
+
+    //Если пока режиссёры читались из базы, кто-то из них изменился или был удалён, прочитанное могло устареть
+    private synchronized void putDirectors(List<Director> loaded, long version) {
+        if (version != directorsVersion) {
+            return;
+        }
+        Snapshot current = snapshot();
+        Map<Integer, Director> directors = new HashMap<>(current.directors());
+        loaded.forEach(director -> directors.put(director.getId(), director));
+        snapshot = current.withDirectors(Map.copyOf(directors));
+    }
+
+    private synchronized long directorsVersion() {
+        return directorsVersion;
+    }
+
+    private Snapshot snapshot() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            rebuild();
+            current = snapshot;
+        }
+        return current;
+    }
+
+    private static Genre copy(Genre genre) {
+        return new Genre(genre.getId(), genre.getName());
+    }
+
+    private static MpaRating copy(MpaRating rating) {
+        return new MpaRating(rating.getId(), rating.getName(), rating.getDescription());
+    }
+
+    private static Director copy(Director director) {
+        return new Director(director.getId(), director.getName());
+    }
+
+    private static <T> T lookup(T[] values, int id) {
+        return id >= 0 && id < values.length ? values[id] : null;
+    }
+
+    private static <T> T[] byId(List<T> values, ToIntFunction<T> idExtractor, IntFunction<T[]> arrayFactory) {
+        int maxId = values.stream().mapToInt(idExtractor).max().orElse(-1);
+        T[] result = arrayFactory.apply(maxId + 1);
+        values.forEach(value -> result[idExtractor.applyAsInt(value)] = value);
+        return result;
+    }
+
+    private record Snapshot(Genre[] genres, List<Genre> genreList, MpaRating[] mpa, List<MpaRating> mpaList,
+                            Map<Integer, Director> directors) {
+        private Snapshot withDirectors(Map<Integer, Director> directors) {
+            return new Snapshot(genres, genreList, mpa, mpaList, directors);
+        }
+    }
+}
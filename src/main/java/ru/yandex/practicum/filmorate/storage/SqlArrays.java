@@ -0,0 +1,26 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.springframework.jdbc.core.PreparedStatementSetter;
+
+import java.util.Collection;
+
+//Список id передаём одним параметром-массивом для условия = ANY(?), поэтому текст запроса не зависит
+//от их количества и в кеше подготовленных запросов остаётся одна его форма
+public final class SqlArrays {
+    private SqlArrays() {
+    }
+
+    public static PreparedStatementSetter idsArray(Collection<Integer> ids) {
+        return stmt -> stmt.setArray(1, stmt.getConnection().createArrayOf("INTEGER", ids.toArray()));
+    }
+
+    //Несколько массивов — параметры 1, 2, ... в том порядке, в каком переданы
+    @SafeVarargs
+    public static PreparedStatementSetter idsArrays(Collection<Integer>... ids) {
+        return stmt -> {
+            for (int i = 0; i < ids.length; i++) {
+                stmt.setArray(i + 1, stmt.getConnection().createArrayOf("INTEGER", ids[i].toArray()));
+            }
+        };
+    }
+}
@@ -0,0 +1,104 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.event.EventFeedCache;
+import ru.yandex.practicum.filmorate.storage.film.FilmCache;
+import ru.yandex.practicum.filmorate.storage.review.ReviewTopCache;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToLongFunction;
+
+//Показатели кешей и пула соединений снимаются со счётчиков, которые компоненты уже ведут сами
+@Component
+public class StorageMeterBinder implements MeterBinder {
+    private final FilmCache filmCache;
+    private final ReviewTopCache reviewTopCache;
+    private final EventFeedCache eventFeedCache;
+    private final ConnectionPoolMonitor connectionPoolMonitor;
+    private final QueryCounter queryCounter;
+
+    public StorageMeterBinder(FilmCache filmCache, ReviewTopCache reviewTopCache, EventFeedCache eventFeedCache,
+                              ConnectionPoolMonitor connectionPoolMonitor, QueryCounter queryCounter) {
+        this.filmCache = filmCache;
+        this.reviewTopCache = reviewTopCache;
+        this.eventFeedCache = eventFeedCache;
+        this.connectionPoolMonitor = connectionPoolMonitor;
+        this.queryCounter = queryCounter;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        bindCache(registry, "films", filmCache,
+                cache -> cache.getStats().hits(), cache -> cache.getStats().misses(), cache -> cache.getStats().size());
+        bindCache(registry, "reviews.top", reviewTopCache,
+                cache -> cache.getStats().hits(), cache -> cache.getStats().misses(), cache -> cache.getStats().size());
+        bindCache(registry, "events.feed", eventFeedCache,
+                cache -> cache.getStats().hits(), cache -> cache.getStats().misses(), cache -> cache.getStats().size());
+        FunctionCounter.builder("cache.evictions", filmCache, cache -> cache.getStats().evictions())
+                .tag("cache", "films")
+                .register(registry);
+
+        bindPoolGauge(registry, "filmorate.jdbc.connections.active", ConnectionPoolMonitor.Stats::active);
+        bindPoolGauge(registry, "filmorate.jdbc.connections.idle", ConnectionPoolMonitor.Stats::idle);
+        bindPoolGauge(registry, "filmorate.jdbc.connections.pending", ConnectionPoolMonitor.Stats::pending);
+        bindPoolGauge(registry, "filmorate.jdbc.connections.max", ConnectionPoolMonitor.Stats::maxSize);
+        bindPoolGauge(registry, "filmorate.jdbc.limiter.active", ConnectionPoolMonitor.Stats::limiterActive);
+        bindPoolGauge(registry, "filmorate.jdbc.limiter.queue", ConnectionPoolMonitor.Stats::limiterQueue);
+        Gauge.builder("filmorate.jdbc.acquire.max", connectionPoolMonitor, monitor -> monitor.getStats().maxWaitMillis())
+                .baseUnit("milliseconds")
+                .register(registry);
+        FunctionTimer.builder("filmorate.jdbc.acquire", connectionPoolMonitor,
+                        monitor -> monitor.getStats().acquisitions(),
+                        monitor -> {
+                            ConnectionPoolMonitor.Stats stats = monitor.getStats();
+                            return stats.averageWaitMillis() * stats.acquisitions();
+                        },
+                        TimeUnit.MILLISECONDS)
+                .description("Ожидание соединения из пула")
+                .register(registry);
+        FunctionCounter.builder("filmorate.jdbc.acquire.timeouts", connectionPoolMonitor,
+                        monitor -> monitor.getStats().timeouts())
+                .register(registry);
+
+        FunctionCounter.builder("filmorate.http.queries", queryCounter, counter -> counter.getStats().queries())
+                .description("SQL-запросы, выполненные при обработке HTTP-запросов")
+                .register(registry);
+    }
+
+    //Метрики привязаны к самому бину кеша: на лямбды-поставщики Micrometer держал бы только слабую ссылку
+    private static <T> void bindCache(MeterRegistry registry, String name, T cache, ToLongFunction<T> hits,
+                                      ToLongFunction<T> misses, ToDoubleFunction<T> size) {
+        FunctionCounter.builder("cache.gets", cache, hits::applyAsLong)
+                .tag("cache", name)
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("cache.gets", cache, misses::applyAsLong)
+                .tag("cache", name)
+                .tag("result", "miss")
+                .register(registry);
+        Gauge.builder("cache.size", cache, size)
+                .tag("cache", name)
+                .register(registry);
+        Gauge.builder("filmorate.cache.hit.ratio", cache, target -> hitRatio(hits.applyAsLong(target),
+                        misses.applyAsLong(target)))
+                .tag("cache", name)
+                .register(registry);
+    }
+
+    private static double hitRatio(long hits, long misses) {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    private void bindPoolGauge(MeterRegistry registry, String name,
+                               ToDoubleFunction<ConnectionPoolMonitor.Stats> value) {
+        Gauge.builder(name, connectionPoolMonitor, monitor -> value.applyAsDouble(monitor.getStats()))
+                .register(registry);
+    }
+}
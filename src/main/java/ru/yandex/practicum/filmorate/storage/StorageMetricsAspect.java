@@ -0,0 +1,92 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+//Время и число возвращённых строк для каждого метода хранилищ и рекомендаций. Гистограммы публикуются целиком,
+//поэтому p99 по любому методу считается на стороне Prometheus через histogram_quantile.
+//Замеряются только реализации, которые ходят в базу: кеширующая обёртка вызывает их же, и вызов считался бы дважды
+@Aspect
+@Component
+public class StorageMetricsAspect {
+    private final MeterRegistry registry;
+    private final Map<String, Meters> meters = new ConcurrentHashMap<>();
+
+    public StorageMetricsAspect(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Around("execution(public * ru.yandex.practicum.filmorate.storage.film.FilmDbStorage.*(..))"
+            + " || execution(public * ru.yandex.practicum.filmorate.storage.user.UserDbStorage.*(..))"
+            + " || execution(public * ru.yandex.practicum.filmorate.storage.event.EventDbStorage.*(..))"
+            + " || execution(public * ru.yandex.practicum.filmorate.storage.review.ReviewRepository.*(..))"
+            + " || execution(public * ru.yandex.practicum.filmorate.service.RecommendationService.*(..))")
+    public Object measure(ProceedingJoinPoint joinPoint) throws Throwable {
+        String component = joinPoint.getSignature().getDeclaringType().getSimpleName();
+        String method = joinPoint.getSignature().getName();
+        long start = System.nanoTime();
+        Object result;
+        try {
+            result = joinPoint.proceed();
+        } catch (Throwable e) {
+            //Ошибки — отдельной серией с именем исключения, чтобы не портить распределение успешных вызовов
+            Timer.builder("filmorate.storage.calls")
+                    .tag("component", component)
+                    .tag("method", method)
+                    .tag("exception", e.getClass().getSimpleName())
+                    .publishPercentileHistogram()
+                    .register(registry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+        Meters methodMeters = meters.computeIfAbsent(component + "." + method,
+                key -> new Meters(component, method, registry));
+        methodMeters.calls().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        int rows = rows(result);
+        if (rows >= 0) {
+            methodMeters.rows().record(rows);
+        }
+        return result;
+    }
+
+    //-1 — метод возвращает не набор строк
+    private static int rows(Object result) {
+        if (result instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        if (result instanceof Map<?, ?> map) {
+            return map.size();
+        }
+        if (result instanceof Optional<?> optional) {
+            return optional.isPresent() ? 1 : 0;
+        }
+        return -1;
+    }
+
+    private record Meters(Timer calls, DistributionSummary rows) {
+        private Meters(String component, String method, MeterRegistry registry) {
+            this(Timer.builder("filmorate.storage.calls")
+                            .tag("component", component)
+                            .tag("method", method)
+                            .tag("exception", "none")
+                            .publishPercentileHistogram()
+                            .register(registry),
+                    DistributionSummary.builder("filmorate.storage.rows")
+                            .tag("component", component)
+                            .tag("method", method)
+                            .publishPercentileHistogram()
+                            .register(registry));
+        }
+    }
+}
@@ -6,6 +6,7 @@ import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
 import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.storage.SqlArrays;
 
 import java.sql.PreparedStatement;
 import java.sql.Statement;
@@ -43,12 +44,10 @@ public class DirectorDbStorage implements DirectorStorage {
             return Collections.emptyList();
         }
 
-        String inSql = String.join(",", Collections.nCopies(ids.size(), "?"));
-        String sql = String.format("SELECT * FROM directors WHERE director_id IN (%s)", inSql);
+        String sql = "SELECT * FROM directors WHERE director_id = ANY(?)";
 
-        return jdbcTemplate.query(sql, (rs, rowNum) ->
-                        new Director(rs.getInt("director_id"), rs.getString("name")),
-                ids.toArray());
+        return jdbcTemplate.query(sql, SqlArrays.idsArray(ids), (rs, rowNum) ->
+                new Director(rs.getInt("director_id"), rs.getString("name")));
     }
 
     @Override
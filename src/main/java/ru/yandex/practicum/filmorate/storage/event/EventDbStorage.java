@@ -3,19 +3,23 @@ package ru.yandex.practicum.filmorate.storage.event;
 import lombok.RequiredArgsConstructor;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.stereotype.Repository;
 import ru.yandex.practicum.filmorate.model.feed.Event;
 
-import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
 import java.util.List;
 
 @Repository
 @RequiredArgsConstructor
 public class EventDbStorage implements EventStorage {
+    private static final String INSERT_EVENT_QUERY =
+            "INSERT INTO events (event_id, user_id, entity_id, event_type, operation, timestamp) VALUES (?, ?, ?, ?, ?, ?)";
+    public static final String GET_EVENTS_PAGE_QUERY = """
+            SELECT * FROM (
+                SELECT * FROM events WHERE user_id = ? AND event_id < ? ORDER BY event_id DESC LIMIT ?
+            ) ORDER BY event_id ASC
+            """;
 
     private final JdbcTemplate jdbcTemplate;
 
@@ -29,23 +33,28 @@ public class EventDbStorage implements EventStorage {
         }
     }
 
+    //Последние limit событий с id меньше beforeId; по индексу (user_id, event_id) история не просматривается
     @Override
-    public Event addEvent(Event event) {
-        String sql = "INSERT INTO events (user_id, entity_id, event_type, operation, timestamp) VALUES (?, ?, ?, ?, ?)";
-        GeneratedKeyHolder keyHolder = new GeneratedKeyHolder();
-
-        jdbcTemplate.update(connection -> {
-            PreparedStatement stmt = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
-            stmt.setInt(1, event.getUserId());
-            stmt.setInt(2, event.getEntityId());
-            stmt.setString(3, event.getEventType());
-            stmt.setString(4, event.getOperation());
-            stmt.setLong(5, event.getTimestamp());
-            return stmt;
-        }, keyHolder);
-
-        event.setEventId(keyHolder.getKey().intValue());
-        return event;
+    public List<Event> getEventsByUserId(int userId, int beforeId, int limit) {
+        return jdbcTemplate.query(GET_EVENTS_PAGE_QUERY, this::mapRowToEvent, userId, beforeId, limit);
+    }
+
+    @Override
+    public int getMaxEventId() {
+        Integer maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(event_id), 0) FROM events", Integer.class);
+        return maxId == null ? 0 : maxId;
+    }
+
+    @Override
+    public void addEvents(List<Event> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        List<Object[]> batchArgs = events.stream()
+                .map(event -> new Object[]{event.getEventId(), event.getUserId(), event.getEntityId(),
+                        event.getEventType(), event.getOperation(), event.getTimestamp()})
+                .toList();
+        jdbcTemplate.batchUpdate(INSERT_EVENT_QUERY, batchArgs);
     }
 
     private Event mapRowToEvent(ResultSet rs, int rowNum) throws SQLException {
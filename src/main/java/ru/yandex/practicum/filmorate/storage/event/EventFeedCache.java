@@ -0,0 +1,88 @@
+package ru.yandex.practicum.filmorate.storage.event;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.feed.Event;
+import ru.yandex.practicum.filmorate.service.events.UserDeletedEvent;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntFunction;
+
+//Лента пользователя загружается из базы при первом обращении, дальше пополняется новыми событиями.
+//Загрузка идёт под ReentrantLock ленты, а не внутри computeIfAbsent, чтобы не закреплять виртуальный поток
+@Component
+public class EventFeedCache {
+    private final int capacity;
+    private final Map<Integer, Feed> feeds = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public EventFeedCache(@Value("${filmorate.feed.buffer-size:100}") int capacity) {
+        this.capacity = capacity;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    //loader получает id пользователя и возвращает не больше capacity + 1 последних событий по возрастанию id
+    public List<Event> read(int userId, int beforeId, int limit, IntFunction<List<Event>> loader) {
+        Feed feed = feeds.computeIfAbsent(userId, id -> new Feed());
+        feed.lock.lock();
+        try {
+            boolean loaded = feed.buffer == null;
+            if (loaded) {
+                List<Event> history = loader.apply(userId);
+                feed.buffer = new EventRingBuffer(capacity, history, history.size() <= capacity);
+            }
+            List<Event> events = feed.buffer.before(beforeId, limit);
+            //Попадание — страница отдана из уже загруженной ленты без обращения к базе
+            if (loaded || events == null) {
+                misses.increment();
+            } else {
+                hits.increment();
+            }
+            return events;
+        } finally {
+            feed.lock.unlock();
+        }
+    }
+
+    //Вызывается в порядке выдачи id; ленты, которые ещё не загружались, не заводятся
+    public void append(Event event) {
+        Feed feed = feeds.get(event.getUserId());
+        if (feed == null) {
+            return;
+        }
+        feed.lock.lock();
+        try {
+            if (feed.buffer != null) {
+                feed.buffer.add(event);
+            }
+        } finally {
+            feed.lock.unlock();
+        }
+    }
+
+    public Stats getStats() {
+        return new Stats(hits.sum(), misses.sum(), feeds.size());
+    }
+
+    @EventListener
+    public void onUserDeleted(UserDeletedEvent event) {
+        feeds.remove(event.userId());
+    }
+
+    public record Stats(long hits, long misses, int size) {
+    }
+
+    private static final class Feed {
+        private final ReentrantLock lock = new ReentrantLock();
+        private EventRingBuffer buffer;
+    }
+}
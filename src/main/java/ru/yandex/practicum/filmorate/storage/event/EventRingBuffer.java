@@ -0,0 +1,62 @@
+package ru.yandex.practicum.filmorate.storage.event;
+
+import ru.yandex.practicum.filmorate.model.feed.Event;
+
+import java.util.ArrayList;
+import java.util.List;
+
+//Последние события пользователя по возрастанию id; при переполнении вытесняется самое старое
+public class EventRingBuffer {
+    private final Event[] events;
+    private int head;
+    private int size;
+    //Буфер содержит всю историю пользователя, пока из него ничего не вытеснено
+    private boolean complete;
+
+    public EventRingBuffer(int capacity, List<Event> history, boolean complete) {
+        this.events = new Event[capacity];
+        this.complete = complete;
+        int from = Math.max(0, history.size() - capacity);
+        if (from > 0) {
+            this.complete = false;
+        }
+        for (int i = from; i < history.size(); i++) {
+            add(history.get(i));
+        }
+    }
+
+    //События приходят по возрастанию id; уже загруженные из базы повторно не добавляются
+    public void add(Event event) {
+        if (size > 0 && event.getEventId() <= get(size - 1).getEventId()) {
+            return;
+        }
+        if (size == events.length) {
+            events[head] = event;
+            head = (head + 1) % events.length;
+            complete = false;
+        } else {
+            events[(head + size) % events.length] = event;
+            size++;
+        }
+    }
+
+    //Последние limit событий с id меньше beforeId или null, если ответ может не уместиться в буфер
+    public List<Event> before(int beforeId, int limit) {
+        int end = size;
+        while (end > 0 && get(end - 1).getEventId() >= beforeId) {
+            end--;
+        }
+        if (end < limit && !complete) {
+            return null;
+        }
+        List<Event> result = new ArrayList<>(Math.min(end, limit));
+        for (int i = Math.max(0, end - limit); i < end; i++) {
+            result.add(get(i));
+        }
+        return result;
+    }
+
+    private Event get(int index) {
+        return events[(head + index) % events.length];
+    }
+}
@@ -7,5 +7,9 @@ import java.util.List;
 public interface EventStorage {
     List<Event> getEventsByUserId(int userId);
 
-    Event addEvent(Event event);
-}
\ No newline at end of file
+    List<Event> getEventsByUserId(int userId, int beforeId, int limit);
+
+    int getMaxEventId();
+
+    void addEvents(List<Event> events);
+}
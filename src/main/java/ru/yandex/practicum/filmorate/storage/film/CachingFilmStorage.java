@@ -0,0 +1,112 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Repository;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+@Primary
+@Repository
+public class CachingFilmStorage implements FilmStorage {
+    private final FilmDbStorage filmDbStorage;
+    private final FilmCache filmCache;
+
+    public CachingFilmStorage(FilmDbStorage filmDbStorage, FilmCache filmCache) {
+        this.filmDbStorage = filmDbStorage;
+        this.filmCache = filmCache;
+    }
+
+    @Override
+    public Film addFilm(Film film) {
+        return filmDbStorage.addFilm(film);
+    }
+
+    @Override
+    public Film updateFilm(Film film) {
+        Film updatedFilm = filmDbStorage.updateFilm(film);
+        filmCache.invalidate(film.getId());
+        return updatedFilm;
+    }
+
+    @Override
+    public List<Film> getAllFilms() {
+        return filmDbStorage.getAllFilms();
+    }
+
+    @Override
+    public List<Film> getFilmsPage(int afterId, int limit) {
+        return filmDbStorage.getFilmsPage(afterId, limit);
+    }
+
+    @Override
+    public Optional<Film> getFilmById(int id) {
+        return filmCache.getOrLoad(id, filmDbStorage::getFilmById);
+    }
+
+    @Override
+    public boolean existsById(int id) {
+        return filmDbStorage.existsById(id);
+    }
+
+    @Override
+    public void addLike(int filmId, int userId) {
+        filmDbStorage.addLike(filmId, userId);
+    }
+
+    @Override
+    public boolean removeLike(int filmId, int userId) {
+        return filmDbStorage.removeLike(filmId, userId);
+    }
+
+    @Override
+    public List<LikeOperation> applyLikeOperations(List<LikeOperation> operations) {
+        return filmDbStorage.applyLikeOperations(operations);
+    }
+
+    @Override
+    public int reconcileLikesCount() {
+        return filmDbStorage.reconcileLikesCount();
+    }
+
+    @Override
+    public void deleteFilm(Film film) {
+        filmDbStorage.deleteFilm(film);
+        filmCache.invalidate(film.getId());
+    }
+
+    @Override
+    public List<Film> getCommonFilms(int userId, int userId2) {
+        return filmDbStorage.getCommonFilms(userId, userId2);
+    }
+
+    @Override
+    public Map<Integer, List<Genre>> getAllGenres(Collection<Film> films) {
+        return filmDbStorage.getAllGenres(films);
+    }
+
+    @Override
+    public List<Film> getFilmsByDirectorSortedByYear(int directorId) {
+        return filmDbStorage.getFilmsByDirectorSortedByYear(directorId);
+    }
+
+    @Override
+    public List<Film> getFilmsByDirectorSortedByLikes(int directorId) {
+        return filmDbStorage.getFilmsByDirectorSortedByLikes(directorId);
+    }
+
+    @Override
+    public List<Film> getFilmsByIds(List<Integer> ids) {
+        return filmDbStorage.getFilmsByIds(ids);
+    }
+
+    @Override
+    public List<Integer> getFilmIdsByUserId(Integer userId) {
+        return filmDbStorage.getFilmIdsByUserId(userId);
+    }
+}
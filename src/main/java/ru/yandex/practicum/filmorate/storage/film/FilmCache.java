@@ -0,0 +1,137 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.service.events.DirectorChangedEvent;
+import ru.yandex.practicum.filmorate.service.events.FilmDeletedEvent;
+import ru.yandex.practicum.filmorate.service.events.FilmSavedEvent;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntFunction;
+
+@Component
+public class FilmCache {
+    private final int maxSize;
+    private final long ttlNanos;
+    private final Map<Integer, CachedFilm> films;
+    private final AtomicLong generation = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public FilmCache(@Value("${filmorate.cache.films.max-size:10000}") int maxSize,
+                     @Value("${filmorate.cache.films.ttl:PT10M}") Duration ttl) {
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        this.films = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, CachedFilm> eldest) {
+                boolean evict = size() > FilmCache.this.maxSize;
+                if (evict) {
+                    evictions.increment();
+                }
+                return evict;
+            }
+        };
+    }
+
+    public Optional<Film> getOrLoad(int id, IntFunction<Optional<Film>> loader) {
+        synchronized (films) {
+            CachedFilm cached = films.get(id);
+            if (cached != null) {
+                if (cached.expiresAt() - System.nanoTime() > 0) {
+                    hits.increment();
+                    return Optional.of(copy(cached.film()));
+                }
+                films.remove(id);
+                evictions.increment();
+            }
+        }
+        misses.increment();
+
+        //Если за время загрузки фильм успели изменить, устаревшую версию в кеш не кладём
+        long loadGeneration = generation.get();
+        Optional<Film> loaded = loader.apply(id);
+        loaded.ifPresent(film -> {
+            synchronized (films) {
+                if (generation.get() == loadGeneration) {
+                    films.put(id, new CachedFilm(copy(film), System.nanoTime() + ttlNanos));
+                }
+            }
+        });
+        return loaded;
+    }
+
+    public void invalidate(int filmId) {
+        synchronized (films) {
+            generation.incrementAndGet();
+            films.remove(filmId);
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (films) {
+            generation.incrementAndGet();
+            films.clear();
+        }
+    }
+
+    @EventListener
+    public void onFilmSaved(FilmSavedEvent event) {
+        invalidate(event.film().getId());
+    }
+
+    @EventListener
+    public void onFilmDeleted(FilmDeletedEvent event) {
+        invalidate(event.filmId());
+    }
+
+    @EventListener
+    public void onDirectorChanged(DirectorChangedEvent event) {
+        synchronized (films) {
+            generation.incrementAndGet();
+            Iterator<CachedFilm> iterator = films.values().iterator();
+            while (iterator.hasNext()) {
+                Film film = iterator.next().film();
+                if (film.getDirectors() != null && film.getDirectors().stream()
+                        .anyMatch(director -> director.getId() == event.directorId())) {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    public Stats getStats() {
+        int size;
+        synchronized (films) {
+            size = films.size();
+        }
+        return new Stats(hits.sum(), misses.sum(), evictions.sum(), size);
+    }
+
+    private Film copy(Film film) {
+        return new Film(film.getId(),
+                film.getName(),
+                film.getDescription(),
+                film.getReleaseDate(),
+                film.getDuration(),
+                film.getMpa(),
+                film.getGenres() == null ? null : new ArrayList<>(film.getGenres()),
+                film.getDirectors() == null ? null : new ArrayList<>(film.getDirectors()));
+    }
+
+    public record Stats(long hits, long misses, long evictions, int size) {
+    }
+
+    private record CachedFilm(Film film, long expiresAt) {
+    }
+}
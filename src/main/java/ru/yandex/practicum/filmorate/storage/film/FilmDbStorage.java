@@ -4,29 +4,87 @@ import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.model.Director;
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
 import ru.yandex.practicum.filmorate.model.MpaRating;
-import ru.yandex.practicum.filmorate.storage.director.DirectorStorage;
-import ru.yandex.practicum.filmorate.storage.genre.GenreStorage;
-import ru.yandex.practicum.filmorate.storage.mpa.MpaStorage;
+import ru.yandex.practicum.filmorate.storage.IdBitmap;
+import ru.yandex.practicum.filmorate.storage.ParallelQueryExecutor;
+import ru.yandex.practicum.filmorate.storage.SqlArrays;
 
 import java.sql.Date;
 import java.sql.*;
 import java.util.*;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Repository
 public class FilmDbStorage implements FilmStorage {
     private final JdbcTemplate jdbcTemplate;
+    private final ParallelQueryExecutor queryExecutor;
+    private final IdBitmap filmIds = new IdBitmap();
 
-    private static final String GET_FILM_IDS_BY_USER_ID_QUERY = "SELECT film_id FROM FILM_LIKES WHERE user_id = ?";
+    public static final String GET_FILM_IDS_BY_USER_ID_QUERY = "SELECT film_id FROM FILM_LIKES WHERE user_id = ?";
     private static final String GET_USER_IDS_BY_FILM_ID_QUERY = "SELECT user_id FROM FILM_LIKES WHERE film_id = ?";
     private static final String DELETE_FILM_QUERY = "DELETE FROM FILMS WHERE film_id = ?";
-
-    public FilmDbStorage(JdbcTemplate jdbcTemplate, DirectorStorage directorStorage, MpaStorage mpaStorage, GenreStorage genreStorage) {
+    private static final String GET_ALL_FILM_IDS_QUERY = "SELECT film_id FROM films";
+    private static final String FILM_EXISTS_QUERY = "SELECT EXISTS (SELECT 1 FROM films WHERE film_id = ?)";
+    private static final String CHANGE_LIKES_COUNT_QUERY = "UPDATE films SET likes_count = likes_count + ? WHERE film_id = ?";
+    private static final String RECONCILE_LIKES_COUNT_QUERY = """
+            UPDATE films f
+            SET likes_count = (SELECT COUNT(*) FROM film_likes fl WHERE fl.film_id = f.film_id)
+            WHERE likes_count <> (SELECT COUNT(*) FROM film_likes fl WHERE fl.film_id = f.film_id)
+            """;
+    //Запросы горячих путей открыты, чтобы QueryPlanTest проверял их планы, а не копии
+    public static final String GET_FILMS_BY_IDS_QUERY = """
+            SELECT f.*, m.name AS mpa_name, m.description AS mpa_description
+            FROM films f JOIN mpa_ratings m ON f.mpa_id = m.mpa_id
+            WHERE f.film_id = ANY(?)
+            """;
+    public static final String GET_GENRES_BY_FILM_IDS_QUERY = """
+            SELECT fg.film_id, g.genre_id, g.name
+            FROM film_genres fg
+            JOIN genres g ON g.genre_id = fg.genre_id
+            WHERE fg.film_id = ANY(?)
+            ORDER BY fg.film_id, g.genre_id
+            """;
+    public static final String GET_DIRECTORS_BY_FILM_IDS_QUERY = """
+            SELECT fd.film_id, d.director_id, d.name
+            FROM film_directors fd
+            JOIN directors d ON fd.director_id = d.director_id
+            WHERE fd.film_id = ANY(?)
+            ORDER BY fd.film_id, d.director_id
+            """;
+    public static final String GET_COMMON_FILMS_QUERY = """
+            SELECT f.*, m.name AS mpa_name, m.description AS mpa_description
+            FROM films f
+            JOIN mpa_ratings m ON f.mpa_id = m.mpa_id
+            JOIN film_likes fl1 ON f.film_id = fl1.film_id AND fl1.user_id = ?
+            JOIN film_likes fl2 ON f.film_id = fl2.film_id AND fl2.user_id = ?
+            ORDER BY f.likes_count DESC, f.film_id
+            """;
+    public static final String GET_FILMS_BY_DIRECTOR_SORTED_BY_YEAR_QUERY = """
+            SELECT f.*, m.name AS mpa_name, m.description AS mpa_description
+            FROM films f
+            JOIN mpa_ratings m ON f.mpa_id = m.mpa_id
+            JOIN film_directors fd ON f.film_id = fd.film_id
+            WHERE fd.director_id = ?
+            ORDER BY f.release_date
+            """;
+    public static final String GET_FILMS_BY_DIRECTOR_SORTED_BY_LIKES_QUERY = """
+            SELECT f.*, m.name AS mpa_name, m.description AS mpa_description
+            FROM films f
+            JOIN mpa_ratings m ON f.mpa_id = m.mpa_id
+            JOIN film_directors fd ON f.film_id = fd.film_id
+            WHERE fd.director_id = ?
+            ORDER BY f.likes_count DESC, f.film_id
+            """;
+
+    public FilmDbStorage(JdbcTemplate jdbcTemplate, ParallelQueryExecutor queryExecutor) {
         this.jdbcTemplate = jdbcTemplate;
+        this.queryExecutor = queryExecutor;
     }
 
     @Override
@@ -45,6 +103,7 @@ public class FilmDbStorage implements FilmStorage {
         }, keyHolder);
 
         film.setId(keyHolder.getKey().intValue());
+        loadedFilmIds().add(film.getId());
         return film;
     }
 
@@ -68,66 +127,14 @@ public class FilmDbStorage implements FilmStorage {
     @Override
     public Optional<Film> getFilmById(int id) {
         String sql = """
-                SELECT f.film_id, f.name, f.description, f.release_date, f.duration, f.mpa_id,
-                m.name AS mpa_name, m.description AS mpa_description, g.genre_id, g.name AS genre_name,
-                d.director_id, d.name AS director_name
+                SELECT f.*, m.name AS mpa_name, m.description AS mpa_description
                 FROM films f
                 JOIN mpa_ratings m ON f.mpa_id = m.mpa_id
-                LEFT JOIN film_genres fg ON f.film_id = fg.film_id
-                LEFT JOIN genres g ON fg.genre_id = g.genre_id
-                LEFT JOIN film_directors fd ON f.film_id = fd.film_id
-                LEFT JOIN directors d ON fd.director_id = d.director_id
                 WHERE f.film_id = ?
                 """;
-        try {
-            Film film = jdbcTemplate.query(sql, rs -> {
-                Film currentFilm = null;
-                Set<Genre> genres = new HashSet<>();
-                Set<Director> directors = new HashSet<>();
-
-                while (rs.next()) {
-                    if (currentFilm == null) {
-                        currentFilm = new Film(
-                                rs.getString("name"),
-                                rs.getString("description"),
-                                rs.getDate("release_date").toLocalDate(),
-                                rs.getInt("duration")
-                        );
-                        currentFilm.setId(rs.getInt("film_id"));
-                        currentFilm.setMpa(new MpaRating(
-                                rs.getInt("mpa_id"),
-                                rs.getString("mpa_name"),
-                                rs.getString("mpa_description")
-                        ));
-                    }
-
-                    int genreId = rs.getInt("genre_id");
-                    if (!rs.wasNull()) {
-                        genres.add(new Genre(
-                                genreId,
-                                rs.getString("genre_name")
-                        ));
-                    }
-
-                    int directorId = rs.getInt("director_id");
-                    if (!rs.wasNull()) {
-                        directors.add(new Director(
-                                directorId,
-                                rs.getString("director_name")
-                        ));
-                    }
-                }
-
-                if (currentFilm != null) {
-                    currentFilm.setGenres(new ArrayList<>(genres));
-                    currentFilm.setDirectors(new ArrayList<>(directors));
-                }
-                return currentFilm;
-            }, id);
-            return Optional.ofNullable(film);
-        } catch (Exception e) {
-            return Optional.empty();
-        }
+        List<Film> films = jdbcTemplate.query(sql, (rs, rowNum) -> createFilmFromResultSet(rs), id);
+        hydrate(films);
+        return films.stream().findFirst();
     }
 
     @Override
@@ -136,38 +143,56 @@ public class FilmDbStorage implements FilmStorage {
             return Collections.emptyList();
         }
 
-        String inSql = String.join(",", Collections.nCopies(ids.size(), "?"));
-        String sql = String.format("""
-                SELECT f.*, m.name AS mpa_name, m.description AS mpa_description
-                FROM films f JOIN mpa_ratings m ON f.mpa_id = m.mpa_id
-                WHERE f.film_id IN (%s)
-                """, inSql);
-
-        List<Film> films = jdbcTemplate.query(sql, (rs, rowNum) -> {
-            Film film = new Film(
-                    rs.getString("name"),
-                    rs.getString("description"),
-                    rs.getDate("release_date").toLocalDate(),
-                    rs.getInt("duration")
-            );
-            film.setId(rs.getInt("film_id"));
-            film.setMpa(new MpaRating(
-                    rs.getInt("mpa_id"),
-                    rs.getString("mpa_name"),
-                    rs.getString("mpa_description")
-            ));
-            return film;
-        }, ids.toArray());
-
-        loadGenresForFilms(films);
-        loadDirectorsForFilms(films);
+        //id известны заранее, поэтому фильмы, жанры и режиссёры загружаются одновременно
+        List<Film> films;
+        try (ParallelQueryExecutor.Scope scope = queryExecutor.open()) {
+            Supplier<List<Film>> baseRows = scope.fork(() ->
+                    jdbcTemplate.query(GET_FILMS_BY_IDS_QUERY, SqlArrays.idsArray(ids),
+                            (rs, rowNum) -> createFilmFromResultSet(rs)));
+            Supplier<Map<Integer, List<Genre>>> genres = scope.fork(() -> loadGenres(ids));
+            Supplier<Map<Integer, List<Director>>> directors = scope.fork(() -> loadDirectors(ids));
+            scope.join();
+            films = baseRows.get();
+            attach(films, genres.get(), directors.get());
+        }
 
-        return films;
+        //Возвращаем фильмы в том же порядке, в каком были переданы id
+        Map<Integer, Film> filmsById = films.stream()
+                .collect(Collectors.toMap(Film::getId, film -> film));
+        return ids.stream()
+                .map(filmsById::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
     }
 
     @Override
     public void deleteFilm(Film film) {
         jdbcTemplate.update(DELETE_FILM_QUERY, film.getId());
+        loadedFilmIds().remove(film.getId());
+    }
+
+    @Override
+    public boolean existsById(int id) {
+        if (loadedFilmIds().contains(id)) {
+            return true;
+        }
+        //Битовая карта может не знать о строках, добавленных в обход приложения, поэтому отрицательный ответ проверяем
+        boolean exists = Boolean.TRUE.equals(jdbcTemplate.queryForObject(FILM_EXISTS_QUERY, Boolean.class, id));
+        if (exists) {
+            filmIds.add(id);
+        }
+        return exists;
+    }
+
+    private IdBitmap loadedFilmIds() {
+        if (!filmIds.isLoaded()) {
+            synchronized (filmIds) {
+                if (!filmIds.isLoaded()) {
+                    filmIds.load(jdbcTemplate.queryForList(GET_ALL_FILM_IDS_QUERY, Integer.class));
+                }
+            }
+        }
+        return filmIds;
     }
 
     @Override
@@ -191,157 +216,174 @@ public class FilmDbStorage implements FilmStorage {
             return film;
         });
 
-        loadGenresForFilms(films);
-
-        loadDirectorsForFilms(films);
+        hydrate(films);
 
         return films;
     }
 
-    private void loadGenresForFilms(List<Film> films) {
-        if (films == null || films.isEmpty()) return;
-
-        String filmIds = films.stream()
-                .map(f -> String.valueOf(f.getId()))
-                .collect(Collectors.joining(","));
+    @Override
+    public List<Film> getFilmsPage(int afterId, int limit) {
+        String sql = """
+                SELECT f.*, m.name AS mpa_name, m.description AS mpa_description
+                FROM films f JOIN mpa_ratings m ON f.mpa_id = m.mpa_id
+                WHERE f.film_id > ?
+                ORDER BY f.film_id
+                LIMIT ?
+                """;
 
-        String sql = String.format("""
-                SELECT fg.film_id, g.genre_id, g.name
-                FROM film_genres fg
-                JOIN genres g ON g.genre_id = fg.genre_id
-                WHERE fg.film_id IN (%s)
-                """, filmIds);
+        List<Film> films = jdbcTemplate.query(connection -> {
+            PreparedStatement stmt = connection.prepareStatement(sql);
+            stmt.setFetchSize(limit);
+            stmt.setInt(1, afterId);
+            stmt.setInt(2, limit);
+            return stmt;
+        }, (rs, rowNum) -> createFilmFromResultSet(rs));
 
-        Map<Integer, List<Genre>> filmGenres = new HashMap<>();
-        jdbcTemplate.query(sql, rs -> {
-            int filmId = rs.getInt("film_id");
-            Genre genre = new Genre(
-                    rs.getInt("genre_id"),
-                    rs.getString("name")
-            );
-            filmGenres.computeIfAbsent(filmId, k -> new ArrayList<>()).add(genre);
-        });
+        hydrate(films);
 
-        films.forEach(film -> {
-            List<Genre> genres = filmGenres.getOrDefault(film.getId(), Collections.emptyList());
-            film.setGenres(genres);
-        });
+        return films;
     }
 
-    private void loadDirectorsForFilms(List<Film> films) {
+    //Жанры и режиссёры любого списка фильмов загружаются двумя параллельными запросами,
+    //одинаковые объекты переиспользуются
+    private void hydrate(List<Film> films) {
         if (films == null || films.isEmpty()) return;
 
-        String filmIds = films.stream()
-                .map(f -> String.valueOf(f.getId()))
-                .collect(Collectors.joining(","));
+        List<Integer> filmIds = films.stream().map(Film::getId).toList();
+        try (ParallelQueryExecutor.Scope scope = queryExecutor.open()) {
+            Supplier<Map<Integer, List<Genre>>> genres = scope.fork(() -> loadGenres(filmIds));
+            Supplier<Map<Integer, List<Director>>> directors = scope.fork(() -> loadDirectors(filmIds));
+            scope.join();
+            attach(films, genres.get(), directors.get());
+        }
+    }
 
-        String sql = String.format("""
-                SELECT fd.film_id, d.director_id, d.name
-                FROM film_directors fd
-                JOIN directors d ON fd.director_id = d.director_id
-                WHERE fd.film_id IN (%s)
-                """, filmIds);
+    private static void attach(List<Film> films, Map<Integer, List<Genre>> filmGenres,
+                               Map<Integer, List<Director>> filmDirectors) {
+        films.forEach(film -> {
+            film.setGenres(filmGenres.getOrDefault(film.getId(), new ArrayList<>()));
+            film.setDirectors(filmDirectors.getOrDefault(film.getId(), new ArrayList<>()));
+        });
+    }
 
-        Map<Integer, List<Director>> filmDirectors = new HashMap<>();
-        jdbcTemplate.query(sql, rs -> {
-            int filmId = rs.getInt("film_id");
-            Director director = new Director(
-                    rs.getInt("director_id"),
-                    rs.getString("name")
-            );
-            filmDirectors.computeIfAbsent(filmId, k -> new ArrayList<>()).add(director);
+    private Map<Integer, List<Genre>> loadGenres(Collection<Integer> filmIds) {
+        Map<Integer, Genre> genres = new HashMap<>();
+        Map<Integer, List<Genre>> filmGenres = new HashMap<>();
+        //Без лямбды в computeIfAbsent SQLException доходит до JdbcTemplate и переводится в DataAccessException
+        jdbcTemplate.query(GET_GENRES_BY_FILM_IDS_QUERY, SqlArrays.idsArray(filmIds), rs -> {
+            int genreId = rs.getInt("genre_id");
+            Genre genre = genres.get(genreId);
+            if (genre == null) {
+                genre = new Genre(genreId, rs.getString("name"));
+                genres.put(genreId, genre);
+            }
+            filmGenres.computeIfAbsent(rs.getInt("film_id"), k -> new ArrayList<>()).add(genre);
         });
+        return filmGenres;
+    }
 
-        films.forEach(film -> {
-            List<Director> directors = filmDirectors.getOrDefault(film.getId(), Collections.emptyList());
-            film.setDirectors(directors);
+    private Map<Integer, List<Director>> loadDirectors(Collection<Integer> filmIds) {
+        Map<Integer, Director> directors = new HashMap<>();
+        Map<Integer, List<Director>> filmDirectors = new HashMap<>();
+        jdbcTemplate.query(GET_DIRECTORS_BY_FILM_IDS_QUERY, SqlArrays.idsArray(filmIds), rs -> {
+            int directorId = rs.getInt("director_id");
+            Director director = directors.get(directorId);
+            if (director == null) {
+                director = new Director(directorId, rs.getString("name"));
+                directors.put(directorId, director);
+            }
+            filmDirectors.computeIfAbsent(rs.getInt("film_id"), k -> new ArrayList<>()).add(director);
         });
+        return filmDirectors;
     }
 
     @Override
+    @Transactional
     public void addLike(int filmId, int userId) {
         String sql = "INSERT INTO film_likes (film_id, user_id) VALUES (?, ?)";
         jdbcTemplate.update(sql, filmId, userId);
+        jdbcTemplate.update(CHANGE_LIKES_COUNT_QUERY, 1, filmId);
     }
 
     @Override
-    public void removeLike(int filmId, int userId) {
+    @Transactional
+    public boolean removeLike(int filmId, int userId) {
         String sql = "DELETE FROM film_likes WHERE film_id = ? AND user_id = ?";
-        jdbcTemplate.update(sql, filmId, userId);
-    }
-
-    @Override
-    public List<Film> getPopularFilms(int count) {
-        return getPopularFilmsWithFilters(count, null, null);
+        boolean removed = jdbcTemplate.update(sql, filmId, userId) > 0;
+        if (removed) {
+            jdbcTemplate.update(CHANGE_LIKES_COUNT_QUERY, -1, filmId);
+        }
+        return removed;
     }
 
     @Override
-    public List<Film> getPopularFilmsWithFilters(int count, Integer genreId, Integer year) {
-        StringBuilder sql = new StringBuilder("""
-                SELECT f.*, m.name AS mpa_name, m.description AS mpa_description,
-                COUNT(fl.user_id) AS likes_count
-                FROM films f
-                LEFT JOIN film_likes fl ON f.film_id = fl.film_id
-                JOIN mpa_ratings m ON f.mpa_id = m.mpa_id
-                """);
-
-        boolean hasWhere = false;
-
-        if (genreId != null || year != null) {
-            sql.append(" WHERE ");
-            if (genreId != null) {
-                sql.append("EXISTS (SELECT 1 FROM film_genres fg WHERE fg.film_id = f.film_id AND fg.genre_id = ").append(genreId).append(")");
-                hasWhere = true;
+    @Transactional
+    public List<LikeOperation> applyLikeOperations(List<LikeOperation> operations) {
+        if (operations.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Set<Long> existingLikes = findExistingLikes(operations);
+
+        List<LikeOperation> applied = new ArrayList<>();
+        List<Object[]> inserts = new ArrayList<>();
+        List<Object[]> deletes = new ArrayList<>();
+        Map<Integer, Integer> likesDelta = new HashMap<>();
+        for (LikeOperation operation : operations) {
+            boolean liked = existingLikes.contains(likeKey(operation.getFilmId(), operation.getUserId()));
+            if (operation.isAdd() == liked) {
+                continue;
             }
-            if (year != null) {
-                if (hasWhere) {
-                    sql.append(" AND ");
-                }
-                sql.append("EXTRACT(YEAR FROM f.release_date) = ").append(year);
+            Object[] args = new Object[]{operation.getFilmId(), operation.getUserId()};
+            if (operation.isAdd()) {
+                inserts.add(args);
+            } else {
+                deletes.add(args);
             }
+            likesDelta.merge(operation.getFilmId(), operation.isAdd() ? 1 : -1, Integer::sum);
+            applied.add(operation);
         }
 
-        sql.append(" GROUP BY f.film_id, m.mpa_id ORDER BY likes_count DESC LIMIT ?");
+        if (!inserts.isEmpty()) {
+            jdbcTemplate.batchUpdate("INSERT INTO film_likes (film_id, user_id) VALUES (?, ?)", inserts);
+        }
+        if (!deletes.isEmpty()) {
+            jdbcTemplate.batchUpdate("DELETE FROM film_likes WHERE film_id = ? AND user_id = ?", deletes);
+        }
+        List<Object[]> countArgs = likesDelta.entrySet().stream()
+                .filter(entry -> entry.getValue() != 0)
+                .map(entry -> new Object[]{entry.getValue(), entry.getKey()})
+                .toList();
+        if (!countArgs.isEmpty()) {
+            jdbcTemplate.batchUpdate(CHANGE_LIKES_COUNT_QUERY, countArgs);
+        }
+        return applied;
+    }
 
-        List<Film> films = jdbcTemplate.query(sql.toString(), (rs, rowNum) -> {
-            Film film = new Film(
-                    rs.getString("name"),
-                    rs.getString("description"),
-                    rs.getDate("release_date").toLocalDate(),
-                    rs.getInt("duration")
-            );
-            film.setId(rs.getInt("film_id"));
+    private Set<Long> findExistingLikes(List<LikeOperation> operations) {
+        Set<Integer> filmIds = operations.stream().map(LikeOperation::getFilmId).collect(Collectors.toSet());
+        Set<Integer> userIds = operations.stream().map(LikeOperation::getUserId).collect(Collectors.toSet());
+        String sql = "SELECT film_id, user_id FROM film_likes WHERE film_id = ANY(?) AND user_id = ANY(?)";
 
-            MpaRating mpa = new MpaRating(
-                    rs.getInt("mpa_id"),
-                    rs.getString("mpa_name"),
-                    rs.getString("mpa_description")
-            );
-            film.setMpa(mpa);
-
-            return film;
-        }, count);
+        Set<Long> existingLikes = new HashSet<>();
+        jdbcTemplate.query(sql, SqlArrays.idsArrays(filmIds, userIds), rs -> {
+            existingLikes.add(likeKey(rs.getInt("film_id"), rs.getInt("user_id")));
+        });
+        return existingLikes;
+    }
 
-        loadGenresForFilms(films);
-        loadDirectorsForFilms(films);
+    private static long likeKey(int filmId, int userId) {
+        return ((long) filmId << 32) | (userId & 0xFFFFFFFFL);
+    }
 
-        return films;
+    @Override
+    @Transactional
+    public int reconcileLikesCount() {
+        return jdbcTemplate.update(RECONCILE_LIKES_COUNT_QUERY);
     }
 
     @Override
     public List<Film> getCommonFilms(int userId1, int userId2) {
-        String query = """
-                SELECT f.*, m.name AS mpa_name, m.description AS mpa_description
-                FROM FILMS f
-                JOIN mpa_ratings m ON f.mpa_id = m.mpa_id
-                JOIN film_likes fl1 ON f.film_id = fl1.film_id AND fl1.user_id = ?
-                JOIN film_likes fl2 ON f.film_id = fl2.film_id AND fl2.user_id = ?
-                LEFT JOIN film_likes fl_likes ON f.film_id = fl_likes.film_id
-                GROUP BY f.film_id, m.mpa_id
-                ORDER BY COUNT(fl_likes.user_id) DESC
-                """;
-
-        List<Film> films = jdbcTemplate.query(query, (rs, rowNum) -> {
+        List<Film> films = jdbcTemplate.query(GET_COMMON_FILMS_QUERY, (rs, rowNum) -> {
             Film film = new Film(
                     rs.getString("name"),
                     rs.getString("description"),
@@ -360,8 +402,7 @@ public class FilmDbStorage implements FilmStorage {
             return film;
         }, userId1, userId2);
 
-        loadGenresForFilms(films);
-        loadDirectorsForFilms(films);
+        hydrate(films);
 
         return films;
     }
@@ -374,16 +415,7 @@ public class FilmDbStorage implements FilmStorage {
                 .map(Film::getId)
                 .toList();
 
-        String inSql = String.join(",", Collections.nCopies(filmIds.size(), "?"));
-
-        String query = String.format("""
-                SELECT fg.film_id, g.genre_id, g.name
-                FROM film_genres fg
-                JOIN genres g ON g.genre_id = fg.genre_id
-                WHERE fg.film_id IN (%s)
-                """, inSql);
-
-        jdbcTemplate.query(query, filmIds.toArray(), rs -> {
+        jdbcTemplate.query(GET_GENRES_BY_FILM_IDS_QUERY, SqlArrays.idsArray(filmIds), rs -> {
             int filmId = rs.getInt("film_id");
             Genre genre = new Genre(
                     rs.getInt("genre_id"),
@@ -395,6 +427,7 @@ public class FilmDbStorage implements FilmStorage {
         return genres;
     }
 
+    @Override
     public List<Integer> getFilmIdsByUserId(Integer userId) {
         return jdbcTemplate.queryForList(GET_FILM_IDS_BY_USER_ID_QUERY, Integer.class, userId);
     }
@@ -405,16 +438,7 @@ public class FilmDbStorage implements FilmStorage {
 
     @Override
     public List<Film> getFilmsByDirectorSortedByYear(int directorId) {
-        String sql = """
-                SELECT f.*, m.name AS mpa_name, m.description AS mpa_description
-                FROM films f
-                JOIN mpa_ratings m ON f.mpa_id = m.mpa_id
-                JOIN film_directors fd ON f.film_id = fd.film_id
-                WHERE fd.director_id = ?
-                ORDER BY f.release_date
-                """;
-
-        List<Film> films = jdbcTemplate.query(sql, (rs, rowNum) -> {
+        List<Film> films = jdbcTemplate.query(GET_FILMS_BY_DIRECTOR_SORTED_BY_YEAR_QUERY, (rs, rowNum) -> {
             Film film = createFilmFromResultSet(rs);
             film.setMpa(new MpaRating(
                     rs.getInt("mpa_id"),
@@ -424,27 +448,14 @@ public class FilmDbStorage implements FilmStorage {
             return film;
         }, directorId);
 
-        loadGenresForFilms(films);
-        loadDirectorsForFilms(films);
+        hydrate(films);
 
         return films;
     }
 
     @Override
     public List<Film> getFilmsByDirectorSortedByLikes(int directorId) {
-        String sql = """
-                SELECT f.*, m.name AS mpa_name, m.description AS mpa_description,
-                COUNT(fl.user_id) AS likes_count
-                FROM films f
-                JOIN mpa_ratings m ON f.mpa_id = m.mpa_id
-                JOIN film_directors fd ON f.film_id = fd.film_id
-                LEFT JOIN film_likes fl ON f.film_id = fl.film_id
-                WHERE fd.director_id = ?
-                GROUP BY f.film_id, m.mpa_id
-                ORDER BY likes_count DESC
-                """;
-
-        List<Film> films = jdbcTemplate.query(sql, (rs, rowNum) -> {
+        List<Film> films = jdbcTemplate.query(GET_FILMS_BY_DIRECTOR_SORTED_BY_LIKES_QUERY, (rs, rowNum) -> {
             Film film = createFilmFromResultSet(rs);
             film.setMpa(new MpaRating(
                     rs.getInt("mpa_id"),
@@ -454,8 +465,7 @@ public class FilmDbStorage implements FilmStorage {
             return film;
         }, directorId);
 
-        loadGenresForFilms(films);
-        loadDirectorsForFilms(films);
+        hydrate(films);
 
         return films;
     }
@@ -475,93 +485,4 @@ public class FilmDbStorage implements FilmStorage {
         ));
         return film;
     }
-
-    @Override
-    public List<Film> searchFilmsByDirector(String query) {
-        String sql = """
-                SELECT DISTINCT f.*, m.name AS mpa_name, m.description AS mpa_description
-                FROM films f
-                JOIN mpa_ratings m ON f.mpa_id = m.mpa_id
-                JOIN film_directors fd ON f.film_id = fd.film_id
-                JOIN directors d ON fd.director_id = d.director_id
-                WHERE LOWER(d.name) LIKE LOWER(?)
-                ORDER BY f.film_id
-                """;
-
-        String searchPattern = "%" + query.toLowerCase() + "%";
-
-        List<Film> films = jdbcTemplate.query(sql, (rs, rowNum) -> {
-            Film film = createFilmFromResultSet(rs);
-            film.setMpa(new MpaRating(
-                    rs.getInt("mpa_id"),
-                    rs.getString("mpa_name"),
-                    rs.getString("mpa_description")
-            ));
-            return film;
-        }, searchPattern);
-
-        loadGenresForFilms(films);
-        loadDirectorsForFilms(films);
-
-        return films;
-    }
-
-    @Override
-    public List<Film> searchFilmsByTitle(String query) {
-        String sql = """
-                SELECT f.*, m.name AS mpa_name, m.description AS mpa_description
-                FROM films f
-                JOIN mpa_ratings m ON f.mpa_id = m.mpa_id
-                WHERE LOWER(f.name) LIKE LOWER(?)
-                ORDER BY f.film_id
-                """;
-
-        String searchPattern = "%" + query.toLowerCase() + "%";
-
-        List<Film> films = jdbcTemplate.query(sql, (rs, rowNum) -> {
-            Film film = createFilmFromResultSet(rs);
-            film.setMpa(new MpaRating(
-                    rs.getInt("mpa_id"),
-                    rs.getString("mpa_name"),
-                    rs.getString("mpa_description")
-            ));
-            return film;
-        }, searchPattern);
-
-        loadGenresForFilms(films);
-        loadDirectorsForFilms(films);
-
-        return films;
-    }
-
-    @Override
-    public List<Film> searchFilmsByTitleAndDirector(String title, String directorName) {
-        String sql = """
-                SELECT DISTINCT f.*, m.name AS mpa_name, m.description AS mpa_description
-                FROM films f
-                JOIN mpa_ratings m ON f.mpa_id = m.mpa_id
-                LEFT JOIN film_directors fd ON f.film_id = fd.film_id
-                LEFT JOIN directors d ON fd.director_id = d.director_id
-                WHERE (LOWER(f.name) LIKE LOWER(?) OR LOWER(d.name) LIKE LOWER(?))
-                ORDER BY f.film_id DESC
-                """;
-
-        String titlePattern = "%" + title.toLowerCase() + "%";
-        String directorPattern = "%" + directorName.toLowerCase() + "%";
-
-        List<Film> films = jdbcTemplate.query(sql, (rs, rowNum) -> {
-            Film film = createFilmFromResultSet(rs);
-            film.setMpa(new MpaRating(
-                    rs.getInt("mpa_id"),
-                    rs.getString("mpa_name"),
-                    rs.getString("mpa_description")
-            ));
-            return film;
-        }, titlePattern, directorPattern);
-
-        loadGenresForFilms(films);
-        loadDirectorsForFilms(films);
-
-        return films;
-    }
 }
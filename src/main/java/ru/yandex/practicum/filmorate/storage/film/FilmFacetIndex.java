@@ -0,0 +1,219 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.service.events.DirectorChangedEvent;
+import ru.yandex.practicum.filmorate.service.events.FilmDeletedEvent;
+import ru.yandex.practicum.filmorate.service.events.FilmSavedEvent;
+import ru.yandex.practicum.filmorate.storage.SortedIntSet;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+//Для каждого значения частого признака (жанр, рейтинг, год) храним битовую карту фильмов. У режиссёра фильмов
+//единицы, а карта занимала бы max(film_id)/8 байт на каждого, поэтому его фильмы хранятся отсортированным массивом id
+@Slf4j
+@Component
+public class FilmFacetIndex {
+    private final JdbcTemplate jdbcTemplate;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final BitSet allFilms = new BitSet();
+    private final Map<Integer, BitSet> byGenre = new HashMap<>();
+    private final Map<Integer, BitSet> byMpa = new HashMap<>();
+    private final NavigableMap<Integer, BitSet> byYear = new TreeMap<>();
+    private final Map<Integer, SortedIntSet> byDirector = new HashMap<>();
+    private final Map<Integer, Facets> facetsByFilm = new HashMap<>();
+
+    public FilmFacetIndex(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        Map<Integer, Set<Integer>> filmGenres = new HashMap<>();
+        jdbcTemplate.query("SELECT film_id, genre_id FROM film_genres", rs -> {
+            filmGenres.computeIfAbsent(rs.getInt("film_id"), k -> new HashSet<>()).add(rs.getInt("genre_id"));
+        });
+        Map<Integer, Set<Integer>> filmDirectors = new HashMap<>();
+        jdbcTemplate.query("SELECT film_id, director_id FROM film_directors", rs -> {
+            filmDirectors.computeIfAbsent(rs.getInt("film_id"), k -> new HashSet<>()).add(rs.getInt("director_id"));
+        });
+        List<Facets> loaded = jdbcTemplate.query(
+                "SELECT film_id, mpa_id, EXTRACT(YEAR FROM release_date) AS release_year FROM films",
+                (rs, rowNum) -> {
+                    int filmId = rs.getInt("film_id");
+                    return new Facets(filmId, rs.getInt("mpa_id"), rs.getInt("release_year"),
+                            filmGenres.getOrDefault(filmId, Set.of()), filmDirectors.getOrDefault(filmId, Set.of()));
+                });
+
+        lock.writeLock().lock();
+        try {
+            allFilms.clear();
+            byGenre.clear();
+            byMpa.clear();
+            byYear.clear();
+            byDirector.clear();
+            facetsByFilm.clear();
+            loaded.forEach(this::put);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Индекс фильтров по фильмам построен: {} фильмов", loaded.size());
+    }
+
+    public BitSet match(FilmFilter filter) {
+        lock.readLock().lock();
+        try {
+            //Начинаем с самого избирательного признака — режиссёра, остальные пересекаются с результатом на месте
+            BitSet result = null;
+            if (!filter.directorIds().isEmpty()) {
+                result = new BitSet();
+                for (Integer directorId : filter.directorIds()) {
+                    SortedIntSet films = byDirector.get(directorId);
+                    if (films != null) {
+                        films.forEach(result::set);
+                    }
+                }
+            }
+            if (!filter.genreIds().isEmpty()) {
+                result = intersect(result, values(byGenre, filter.genreIds()));
+            }
+            if (!filter.mpaIds().isEmpty()) {
+                result = intersect(result, values(byMpa, filter.mpaIds()));
+            }
+            if (filter.yearFrom() != null || filter.yearTo() != null) {
+                int from = filter.yearFrom() == null ? Integer.MIN_VALUE : filter.yearFrom();
+                int to = filter.yearTo() == null ? Integer.MAX_VALUE : filter.yearTo();
+                result = intersect(result, from <= to ? byYear.subMap(from, true, to, true).values() : List.of());
+            }
+            return result == null ? (BitSet) allFilms.clone() : result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @EventListener
+    public void onFilmSaved(FilmSavedEvent event) {
+        Film film = event.film();
+        Set<Integer> genreIds = new HashSet<>();
+        if (film.getGenres() != null) {
+            film.getGenres().stream().map(Genre::getId).forEach(genreIds::add);
+        }
+        Set<Integer> directorIds = new HashSet<>();
+        if (film.getDirectors() != null) {
+            film.getDirectors().stream().map(Director::getId).forEach(directorIds::add);
+        }
+        Facets facets = new Facets(film.getId(), film.getMpa() == null ? 0 : film.getMpa().getId(),
+                film.getReleaseDate().getYear(), genreIds, directorIds);
+
+        lock.writeLock().lock();
+        try {
+            remove(film.getId());
+            put(facets);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @EventListener
+    public void onFilmDeleted(FilmDeletedEvent event) {
+        lock.writeLock().lock();
+        try {
+            remove(event.filmId());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @EventListener
+    public void onDirectorChanged(DirectorChangedEvent event) {
+        Boolean exists = jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM directors WHERE director_id = ?)", Boolean.class, event.directorId());
+        if (Boolean.TRUE.equals(exists)) {
+            return;
+        }
+        //Связи удалённого режиссёра с фильмами в базе удалились каскадно
+        lock.writeLock().lock();
+        try {
+            SortedIntSet films = byDirector.remove(event.directorId());
+            if (films != null) {
+                films.forEach(filmId -> {
+                    Facets facets = facetsByFilm.get(filmId);
+                    Set<Integer> directorIds = new HashSet<>(facets.directorIds());
+                    directorIds.remove(event.directorId());
+                    facetsByFilm.put(filmId, new Facets(filmId, facets.mpaId(), facets.year(),
+                            facets.genreIds(), directorIds));
+                });
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void put(Facets facets) {
+        int filmId = facets.filmId();
+        facetsByFilm.put(filmId, facets);
+        allFilms.set(filmId);
+        byMpa.computeIfAbsent(facets.mpaId(), k -> new BitSet()).set(filmId);
+        byYear.computeIfAbsent(facets.year(), k -> new BitSet()).set(filmId);
+        facets.genreIds().forEach(genreId -> byGenre.computeIfAbsent(genreId, k -> new BitSet()).set(filmId));
+        facets.directorIds().forEach(directorId ->
+                byDirector.computeIfAbsent(directorId, k -> new SortedIntSet()).add(filmId));
+    }
+
+    private void remove(int filmId) {
+        Facets facets = facetsByFilm.remove(filmId);
+        if (facets == null) {
+            return;
+        }
+        allFilms.clear(filmId);
+        clear(byMpa, facets.mpaId(), filmId);
+        clear(byYear, facets.year(), filmId);
+        facets.genreIds().forEach(genreId -> clear(byGenre, genreId, filmId));
+        facets.directorIds().forEach(directorId -> {
+            SortedIntSet films = byDirector.get(directorId);
+            if (films != null && films.remove(filmId) && films.isEmpty()) {
+                byDirector.remove(directorId);
+            }
+        });
+    }
+
+    private static void clear(Map<Integer, BitSet> index, int key, int filmId) {
+        BitSet films = index.get(key);
+        if (films != null) {
+            films.clear(filmId);
+            if (films.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+
+    private static List<BitSet> values(Map<Integer, BitSet> index, Set<Integer> keys) {
+        return keys.stream().map(index::get).filter(Objects::nonNull).toList();
+    }
+
+    //Объединение значений одного признака пересекается с уже найденными фильмами; первый признак даёт новую карту
+    private static BitSet intersect(BitSet result, Collection<BitSet> values) {
+        if (result != null && values.size() == 1) {
+            result.and(values.iterator().next());
+            return result;
+        }
+        BitSet union = new BitSet();
+        values.forEach(union::or);
+        if (result == null) {
+            return union;
+        }
+        result.and(union);
+        return result;
+    }
+
+    private record Facets(int filmId, int mpaId, int year, Set<Integer> genreIds, Set<Integer> directorIds) {
+    }
+}
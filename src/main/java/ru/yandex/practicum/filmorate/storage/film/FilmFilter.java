@@ -0,0 +1,16 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import java.util.Set;
+
+//Внутри одного признака значения объединяются через ИЛИ, разные признаки — через И
+public record FilmFilter(Set<Integer> genreIds,
+                         Set<Integer> mpaIds,
+                         Set<Integer> directorIds,
+                         Integer yearFrom,
+                         Integer yearTo) {
+    public static final FilmFilter NONE = new FilmFilter(Set.of(), Set.of(), Set.of(), null, null);
+
+    public boolean isEmpty() {
+        return genreIds.isEmpty() && mpaIds.isEmpty() && directorIds.isEmpty() && yearFrom == null && yearTo == null;
+    }
+}
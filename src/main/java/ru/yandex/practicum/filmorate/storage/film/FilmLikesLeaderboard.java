@@ -0,0 +1,154 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.service.events.FilmDeletedEvent;
+import ru.yandex.practicum.filmorate.service.events.FilmLikeChangedEvent;
+import ru.yandex.practicum.filmorate.service.events.FilmSavedEvent;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntPredicate;
+
+@Slf4j
+@Component
+public class FilmLikesLeaderboard {
+    private static final int SPARSE_FILTER_LIMIT = 4096;
+    private static final Comparator<Entry> RANKING_ORDER = Comparator.comparingInt(Entry::likes).reversed()
+            .thenComparingInt(Entry::filmId);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Integer, Entry> entries = new HashMap<>();
+    private final NavigableSet<Entry> ranking = new TreeSet<>(RANKING_ORDER);
+
+    public FilmLikesLeaderboard(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    //Рейтинг живёт в памяти, поэтому при старте собираем его заново по счётчикам лайков фильмов.
+    //Сверку счётчиков с таблицей лайков делает LikesCountReconcileJob, после исправлений он вызывает rebuild
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<Entry> loaded = jdbcTemplate.query("SELECT film_id, likes_count FROM films", (rs, rowNum) ->
+                new Entry(rs.getInt("film_id"), rs.getInt("likes_count")));
+
+        lock.writeLock().lock();
+        try {
+            entries.clear();
+            ranking.clear();
+            loaded.forEach(this::put);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Рейтинг популярных фильмов построен: {} фильмов", loaded.size());
+    }
+
+    public List<Integer> getTopFilmIds(int count, IntPredicate filter) {
+        List<Integer> result = new ArrayList<>(Math.max(0, Math.min(count, 1024)));
+        if (count <= 0) {
+            return result;
+        }
+        lock.readLock().lock();
+        try {
+            for (Entry entry : ranking) {
+                if (!filter.test(entry.filmId())) {
+                    continue;
+                }
+                result.add(entry.filmId());
+                if (result.size() == count) {
+                    break;
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    //Небольшой набор фильмов дешевле отсортировать целиком, а в большом первые count найдутся в начале рейтинга
+    public List<Integer> getTopFilmIds(int count, BitSet filmIds) {
+        if (filmIds.cardinality() > SPARSE_FILTER_LIMIT) {
+            return getTopFilmIds(count, filmIds::get);
+        }
+        lock.readLock().lock();
+        try {
+            return filmIds.stream()
+                    .mapToObj(entries::get)
+                    .filter(Objects::nonNull)
+                    .sorted(RANKING_ORDER)
+                    .limit(Math.max(0, count))
+                    .map(Entry::filmId)
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getLikes(int filmId) {
+        lock.readLock().lock();
+        try {
+            Entry entry = entries.get(filmId);
+            return entry == null ? 0 : entry.likes();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @EventListener
+    public void onLikeChanged(FilmLikeChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            Entry entry = entries.get(event.filmId());
+            if (entry == null) {
+                return;
+            }
+            int likes = Math.max(0, entry.likes() + (event.added() ? 1 : -1));
+            put(new Entry(entry.filmId(), likes));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @EventListener
+    public void onFilmSaved(FilmSavedEvent event) {
+        lock.writeLock().lock();
+        try {
+            entries.computeIfAbsent(event.film().getId(), filmId -> {
+                Entry entry = new Entry(filmId, 0);
+                ranking.add(entry);
+                return entry;
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @EventListener
+    public void onFilmDeleted(FilmDeletedEvent event) {
+        lock.writeLock().lock();
+        try {
+            Entry entry = entries.remove(event.filmId());
+            if (entry != null) {
+                ranking.remove(entry);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void put(Entry entry) {
+        Entry previous = entries.put(entry.filmId(), entry);
+        if (previous != null) {
+            ranking.remove(previous);
+        }
+        ranking.add(entry);
+    }
+
+    private record Entry(int filmId, int likes) {
+    }
+}
@@ -2,6 +2,7 @@ package ru.yandex.practicum.filmorate.storage.film;
 
 import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
 
 import java.util.Collection;
 import java.util.List;
@@ -15,17 +16,21 @@ public interface FilmStorage {
 
     List<Film> getAllFilms();
 
+    List<Film> getFilmsPage(int afterId, int limit);
+
     Optional<Film> getFilmById(int id);
 
+    boolean existsById(int id);
+
     void addLike(int filmId, int userId);
 
-    void removeLike(int filmId, int userId);
+    boolean removeLike(int filmId, int userId);
 
-    List<Film> getPopularFilms(int count);
+    List<LikeOperation> applyLikeOperations(List<LikeOperation> operations);
 
-    void deleteFilm(Film film);
+    int reconcileLikesCount();
 
-    List<Film> getPopularFilmsWithFilters(int count, Integer genreId, Integer year);
+    void deleteFilm(Film film);
 
     List<Film> getCommonFilms(int userId, int userId2);
 
@@ -35,12 +40,8 @@ public interface FilmStorage {
 
     List<Film> getFilmsByDirectorSortedByLikes(int directorId);
 
-    List<Film> searchFilmsByTitle(String query);
-
-    List<Film> searchFilmsByDirector(String query);
-
-    List<Film> searchFilmsByTitleAndDirector(String title, String directorName);
-
     List<Film> getFilmsByIds(List<Integer> ids);
 
+    List<Integer> getFilmIdsByUserId(Integer userId);
+
 }
\ No newline at end of file
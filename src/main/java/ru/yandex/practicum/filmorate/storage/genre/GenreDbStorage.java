@@ -3,6 +3,7 @@ package ru.yandex.practicum.filmorate.storage.genre;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Repository;
 import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.storage.SqlArrays;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -61,10 +62,8 @@ public class GenreDbStorage implements GenreStorage {
     @Override
     public List<Genre> getGenresByIds(List<Integer> ids) {
         if (!ids.isEmpty()) {
-            String sql = "SELECT genre_id, name FROM genres WHERE genre_id IN (:ids)";
-            String result = ids.stream().map(String::valueOf).collect(Collectors.joining(", "));
-            sql = sql.replace(":ids", result);
-            return jdbcTemplate.query(sql, (rs, rowNum) ->
+            String sql = "SELECT genre_id, name FROM genres WHERE genre_id = ANY(?)";
+            return jdbcTemplate.query(sql, SqlArrays.idsArray(ids), (rs, rowNum) ->
                     new Genre(rs.getInt("genre_id"), rs.getString("name"))
             );
         } else {
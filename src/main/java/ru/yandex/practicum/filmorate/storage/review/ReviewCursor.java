@@ -0,0 +1,4 @@
+package ru.yandex.practicum.filmorate.storage.review;
+
+public record ReviewCursor(int useful, int reviewId) {
+}
@@ -10,11 +10,22 @@ import ru.yandex.practicum.filmorate.model.Review;
 
 import java.sql.PreparedStatement;
 import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Repository
 public class ReviewRepository {
+    private static final String SUMMARY_COLUMNS = "review_id, film_id, user_id, is_positive, useful";
+    private static final RowMapper<Review> SUMMARY_MAPPER = (rs, rowNum) -> Review.builder()
+            .reviewId(rs.getInt("review_id"))
+            .filmId(rs.getInt("film_id"))
+            .userId(rs.getInt("user_id"))
+            .isPositive(rs.getBoolean("is_positive"))
+            .useful(rs.getInt("useful"))
+            .build();
+
     private final JdbcTemplate jdbc;
     private final RowMapper<Review> mapper;
 
@@ -75,52 +86,83 @@ public class ReviewRepository {
         return jdbc.update(sql, id);
     }
 
-    public List<Review> findAll(int limit) {
-        String sql = "SELECT * FROM reviews ORDER BY useful DESC LIMIT ?";
-        return jdbc.query(sql, mapper, limit);
+    public List<Review> findAll(ReviewCursor after, int limit, boolean withContent) {
+        return findPage(null, after, limit, withContent);
+    }
+
+    public List<Review> findFilmById(int filmId, ReviewCursor after, int limit, boolean withContent) {
+        return findPage(filmId, after, limit, withContent);
+    }
+
+    //Страница по убыванию полезности, при равной полезности — по возрастанию id.
+    //Курсор — последний отзыв предыдущей страницы, поэтому глубокие страницы не требуют OFFSET
+    private List<Review> findPage(Integer filmId, ReviewCursor after, int limit, boolean withContent) {
+        List<Object> params = new ArrayList<>();
+        if (filmId != null) {
+            params.add(filmId);
+        }
+        if (after != null) {
+            params.add(after.useful());
+            params.add(after.useful());
+            params.add(after.reviewId());
+        }
+        params.add(limit);
+
+        return jdbc.query(pageQuery(filmId != null, after != null, withContent),
+                withContent ? mapper : SUMMARY_MAPPER, params.toArray());
     }
 
-    public List<Review> findFilmById(int filmId, int limit) {
-        String sql = "SELECT * FROM reviews WHERE film_id = ? ORDER BY useful DESC LIMIT ?";
-        return jdbc.query(sql, mapper, filmId, limit);
+    //Параметры запроса по порядку: film_id, если byFilm; useful, useful и review_id курсора, если byCursor; лимит
+    public static String pageQuery(boolean byFilm, boolean byCursor, boolean withContent) {
+        StringBuilder sql = new StringBuilder("SELECT ")
+                .append(withContent ? "*" : SUMMARY_COLUMNS)
+                .append(" FROM reviews");
+        List<String> conditions = new ArrayList<>();
+        if (byFilm) {
+            conditions.add("film_id = ?");
+        }
+        if (byCursor) {
+            conditions.add("useful <= ? AND (useful < ? OR review_id > ?)");
+        }
+        if (!conditions.isEmpty()) {
+            sql.append(" WHERE ").append(String.join(" AND ", conditions));
+        }
+        return sql.append(" ORDER BY useful DESC, review_id LIMIT ?").toString();
     }
 
-    public void addLike(int reviewId, int userId) {
+    //MERGE возвращает прежнюю строку через OLD TABLE: true — был лайк, false — дизлайк, null — реакции не было
+    public Boolean setReaction(int reviewId, int userId, boolean isLike) {
         String sql = """
-                MERGE INTO review_likes (review_id, user_id, is_like)
-                KEY (review_id, user_id)
-                VALUES(?,?,true)
+                SELECT is_like FROM OLD TABLE (
+                    MERGE INTO review_likes (review_id, user_id, is_like)
+                    KEY (review_id, user_id)
+                    VALUES (?, ?, ?)
+                )
                 """;
 
-        jdbc.update(sql, reviewId, userId);
+        return firstOrNull(jdbc.queryForList(sql, Boolean.class, reviewId, userId, isLike));
     }
 
-    public void addDislike(int reviewId, int userId) {
+    public Boolean removeReaction(int reviewId, int userId) {
         String sql = """
-                MERGE INTO review_likes (review_id, user_id, is_like)
-                KEY (review_id, user_id)
-                VALUES(?,?,false)
+                SELECT is_like FROM OLD TABLE (
+                    DELETE FROM review_likes WHERE review_id = ? AND user_id = ?
+                )
                 """;
 
-        jdbc.update(sql, reviewId, userId);
+        return firstOrNull(jdbc.queryForList(sql, Boolean.class, reviewId, userId));
     }
 
-    public void removeReaction(int reviewId, int userId) {
-        String sql = "DELETE FROM review_likes WHERE review_id = ? AND user_id = ?";
-        jdbc.update(sql, reviewId, userId);
-    }
+    public void addUseful(Map<Integer, Integer> deltas) {
+        String sql = "UPDATE reviews SET useful = useful + ? WHERE review_id = ?";
+        List<Object[]> batchArgs = deltas.entrySet().stream()
+                .map(entry -> new Object[]{entry.getValue(), entry.getKey()})
+                .toList();
 
-    public void updateReviewUseful(int reviewId) {
-        String sql = """
-                UPDATE reviews
-                SET useful = COALESCE((
-                    SELECT SUM(CASE WHEN is_like THEN 1 ELSE -1 END)
-                    FROM review_likes
-                    WHERE review_id = ?
-                ), 0)
-                WHERE review_id = ?
-                """;
+        jdbc.batchUpdate(sql, batchArgs);
+    }
 
-        jdbc.update(sql, reviewId, reviewId);
+    private static Boolean firstOrNull(List<Boolean> values) {
+        return values.isEmpty() ? null : values.getFirst();
     }
 }
\ No newline at end of file
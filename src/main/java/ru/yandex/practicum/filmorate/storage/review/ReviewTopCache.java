@@ -0,0 +1,217 @@
+package ru.yandex.practicum.filmorate.storage.review;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Review;
+import ru.yandex.practicum.filmorate.service.events.FilmDeletedEvent;
+import ru.yandex.practicum.filmorate.service.events.UserDeletedEvent;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntFunction;
+
+//Первые size отзывов каждого запрошенного фильма в порядке страниц: по убыванию полезности, затем по id.
+//Реакции правят полезность прямо в кеше, поэтому первая страница отзывов не ждёт записи счётчиков в базу
+@Component
+public class ReviewTopCache {
+    public static final Comparator<Review> ORDER = Comparator.comparingInt(Review::getUseful).reversed()
+            .thenComparingInt(Review::getReviewId);
+
+    private final int size;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Integer, Top> tops = new HashMap<>();
+    private final Map<Integer, Integer> filmByReview = new HashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public ReviewTopCache(@Value("${filmorate.reviews.top.size:50}") int size) {
+        this.size = size;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    //loader получает лимит и возвращает отзывы фильма в порядке ORDER; count не больше size
+    public List<Review> getOrLoad(int filmId, int count, IntFunction<List<Review>> loader) {
+        lock.readLock().lock();
+        try {
+            Top top = tops.get(filmId);
+            if (top != null && (top.complete || count <= top.reviews.size())) {
+                hits.increment();
+                return copy(top.reviews, count);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        misses.increment();
+
+        //Если за время загрузки полезность отзывов менялась, загруженный список в кеш не кладём
+        long loadGeneration = generation.get();
+        List<Review> loaded = loader.apply(size + 1);
+        lock.writeLock().lock();
+        try {
+            if (generation.get() == loadGeneration) {
+                evict(filmId);
+                Top top = new Top(loaded.size() <= size);
+                loaded.stream().limit(size).forEach(review -> {
+                    top.reviews.add(copy(review));
+                    filmByReview.put(review.getReviewId(), filmId);
+                });
+                tops.put(filmId, top);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return copy(loaded, count);
+    }
+
+    //false — отзыва в кеше нет
+    public boolean applyDelta(int reviewId, int delta) {
+        lock.writeLock().lock();
+        try {
+            generation.incrementAndGet();
+            Integer filmId = filmByReview.get(reviewId);
+            if (filmId == null) {
+                return false;
+            }
+            Top top = tops.get(filmId);
+            Review review = top.remove(reviewId);
+            review.setUseful(review.getUseful() + delta);
+            //Опустившийся в конец отзыв мог уступить место тому, которого в кеше нет
+            if (!top.complete && delta < 0 && !top.reviews.isEmpty()
+                    && ORDER.compare(review, top.reviews.getLast()) > 0) {
+                filmByReview.remove(reviewId);
+                evict(filmId);
+                return true;
+            }
+            top.insert(review);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    //Отзыв, которого нет в кеше, стал полезнее и мог войти в первые size отзывов своего фильма
+    public void offer(Review review) {
+        lock.writeLock().lock();
+        try {
+            generation.incrementAndGet();
+            Top top = tops.get(review.getFilmId());
+            if (top == null || filmByReview.containsKey(review.getReviewId())) {
+                return;
+            }
+            if (!top.complete && !top.reviews.isEmpty() && ORDER.compare(review, top.reviews.getLast()) > 0) {
+                return;
+            }
+            top.insert(copy(review));
+            filmByReview.put(review.getReviewId(), review.getFilmId());
+            if (top.reviews.size() > size) {
+                filmByReview.remove(top.reviews.removeLast().getReviewId());
+                top.complete = false;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isEmpty() {
+        lock.readLock().lock();
+        try {
+            return tops.isEmpty();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Stats getStats() {
+        lock.readLock().lock();
+        try {
+            return new Stats(hits.sum(), misses.sum(), tops.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void invalidate(int filmId) {
+        lock.writeLock().lock();
+        try {
+            generation.incrementAndGet();
+            evict(filmId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @EventListener
+    public void onFilmDeleted(FilmDeletedEvent event) {
+        invalidate(event.filmId());
+    }
+
+    //Отзывы пользователя удалились каскадно, а каких фильмов они касались, уже не узнать
+    @EventListener
+    public void onUserDeleted(UserDeletedEvent event) {
+        lock.writeLock().lock();
+        try {
+            generation.incrementAndGet();
+            tops.clear();
+            filmByReview.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void evict(int filmId) {
+        Top top = tops.remove(filmId);
+        if (top != null) {
+            top.reviews.forEach(review -> filmByReview.remove(review.getReviewId()));
+        }
+    }
+
+    private static List<Review> copy(List<Review> reviews, int count) {
+        return reviews.stream()
+                .limit(count)
+                .map(ReviewTopCache::copy)
+                .toList();
+    }
+
+    private static Review copy(Review review) {
+        return review.toBuilder().build();
+    }
+
+    public record Stats(long hits, long misses, int size) {
+    }
+
+    private static final class Top {
+        private final List<Review> reviews = new ArrayList<>();
+        private boolean complete;
+
+        private Top(boolean complete) {
+            this.complete = complete;
+        }
+
+        private Review remove(int reviewId) {
+            for (int i = 0; i < reviews.size(); i++) {
+                if (reviews.get(i).getReviewId() == reviewId) {
+                    return reviews.remove(i);
+                }
+            }
+            throw new IllegalStateException("Отзыв " + reviewId + " отсутствует в кеше фильма");
+        }
+
+        private void insert(Review review) {
+            int index = Collections.binarySearch(reviews, review, ORDER);
+            reviews.add(index < 0 ? -index - 1 : index, review);
+        }
+    }
+}
@@ -0,0 +1,324 @@
+package ru.yandex.practicum.filmorate.storage.search;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmSuggestion;
+import ru.yandex.practicum.filmorate.service.events.DirectorChangedEvent;
+import ru.yandex.practicum.filmorate.service.events.FilmDeletedEvent;
+import ru.yandex.practicum.filmorate.service.events.FilmLikeChangedEvent;
+import ru.yandex.practicum.filmorate.service.events.FilmSavedEvent;
+import ru.yandex.practicum.filmorate.storage.SortedIntSet;
+import ru.yandex.practicum.filmorate.storage.SqlArrays;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+@Slf4j
+@Component
+public class FilmSearchIndex {
+    private final JdbcTemplate jdbcTemplate;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final TrigramIndex titles = new TrigramIndex();
+    private final TrigramIndex directorNames = new TrigramIndex();
+    private final Map<Integer, SortedIntSet> filmsByDirector = new HashMap<>();
+    private final Map<Integer, int[]> directorsByFilm = new HashMap<>();
+    private final SuggestionTrie suggestions = new SuggestionTrie();
+    private final Map<Integer, String> filmNames = new HashMap<>();
+
+    public FilmSearchIndex(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        Map<Integer, String> loadedTitles = new HashMap<>();
+        Map<Integer, Integer> loadedLikes = new HashMap<>();
+        jdbcTemplate.query("SELECT film_id, name, likes_count FROM films", rs -> {
+            loadedTitles.put(rs.getInt("film_id"), rs.getString("name"));
+            loadedLikes.put(rs.getInt("film_id"), rs.getInt("likes_count"));
+        });
+        Map<Integer, String> loadedDirectors = new HashMap<>();
+        jdbcTemplate.query("SELECT director_id, name FROM directors", rs -> {
+            loadedDirectors.put(rs.getInt("director_id"), rs.getString("name"));
+        });
+        Map<Integer, SortedIntSet> loadedLinks = new HashMap<>();
+        jdbcTemplate.query("SELECT film_id, director_id FROM film_directors", rs -> {
+            loadedLinks.computeIfAbsent(rs.getInt("film_id"), k -> new SortedIntSet()).add(rs.getInt("director_id"));
+        });
+
+        lock.writeLock().lock();
+        try {
+            titles.clear();
+            directorNames.clear();
+            filmsByDirector.clear();
+            directorsByFilm.clear();
+            suggestions.clear();
+            filmNames.clear();
+            loadedTitles.forEach(titles::put);
+            filmNames.putAll(loadedTitles);
+            loadedDirectors.forEach(directorNames::put);
+            loadedLinks.forEach((filmId, directorIds) -> link(filmId, directorIds.toArray()));
+            loadedLikes.forEach(suggestions::setScore);
+            loadedTitles.keySet().forEach(this::indexSuggestions);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Поисковый индекс построен: {} фильмов, {} режиссёров", loadedTitles.size(), loadedDirectors.size());
+    }
+
+    //Порядок результатов совпадает с прежними SQL-запросами: по названию и по режиссёру — по возрастанию id
+    public List<Integer> searchByTitle(String query) {
+        lock.readLock().lock();
+        try {
+            return toList(titles.search(query), false);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<Integer> searchByDirector(String query) {
+        lock.readLock().lock();
+        try {
+            return toList(filmsOfDirectors(directorNames.search(query)), false);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    //...а при поиске сразу по обоим полям — по убыванию id
+    public List<Integer> searchByTitleOrDirector(String title, String directorName) {
+        lock.readLock().lock();
+        try {
+            return toList(union(titles.search(title), filmsOfDirectors(directorNames.search(directorName))), true);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    //Подсказки ищутся по началу любого слова в названии фильма или в имени его режиссёра
+    public List<FilmSuggestion> suggest(String prefix, int limit) {
+        String normalized = SearchText.normalize(prefix).strip();
+        if (normalized.isEmpty()) {
+            return Collections.emptyList();
+        }
+        lock.readLock().lock();
+        try {
+            return suggestions.top(normalized, limit).stream()
+                    .map(filmId -> new FilmSuggestion(filmId, filmNames.get(filmId)))
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @EventListener
+    public void onFilmSaved(FilmSavedEvent event) {
+        Film film = event.film();
+        int[] directorIds = film.getDirectors() == null
+                ? new int[0]
+                : film.getDirectors().stream().mapToInt(Director::getId).distinct().toArray();
+        Map<Integer, String> missingDirectors = loadMissingDirectors(directorIds);
+
+        lock.writeLock().lock();
+        try {
+            missingDirectors.forEach(directorNames::put);
+            unindexSuggestions(film.getId());
+            titles.put(film.getId(), film.getName());
+            filmNames.put(film.getId(), film.getName());
+            unlink(film.getId());
+            link(film.getId(), directorIds);
+            indexSuggestions(film.getId());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @EventListener
+    public void onFilmDeleted(FilmDeletedEvent event) {
+        lock.writeLock().lock();
+        try {
+            unindexSuggestions(event.filmId());
+            suggestions.forget(event.filmId());
+            titles.remove(event.filmId());
+            filmNames.remove(event.filmId());
+            unlink(event.filmId());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @EventListener
+    public void onDirectorChanged(DirectorChangedEvent event) {
+        List<String> names = jdbcTemplate.queryForList("SELECT name FROM directors WHERE director_id = ?",
+                String.class, event.directorId());
+
+        lock.writeLock().lock();
+        try {
+            SortedIntSet filmIds = filmsByDirector.getOrDefault(event.directorId(), new SortedIntSet());
+            filmIds.forEach(this::unindexSuggestions);
+            if (!names.isEmpty()) {
+                directorNames.put(event.directorId(), names.getFirst());
+                filmIds.forEach(this::indexSuggestions);
+                return;
+            }
+            //Режиссёр удалён, а связи с фильмами в базе удалились каскадно
+            directorNames.remove(event.directorId());
+            if (filmsByDirector.remove(event.directorId()) != null) {
+                filmIds.forEach(filmId -> {
+                    int[] remaining = Arrays.stream(directorsByFilm.get(filmId))
+                            .filter(directorId -> directorId != event.directorId())
+                            .toArray();
+                    if (remaining.length == 0) {
+                        directorsByFilm.remove(filmId);
+                    } else {
+                        directorsByFilm.put(filmId, remaining);
+                    }
+                    indexSuggestions(filmId);
+                });
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @EventListener
+    public void onLikeChanged(FilmLikeChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (titles.contains(event.filmId())) {
+                int likes = suggestions.getScore(event.filmId()) + (event.added() ? 1 : -1);
+                suggestions.setScore(event.filmId(), Math.max(0, likes));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void indexSuggestions(int filmId) {
+        suggestionKeys(filmId).forEach(key -> suggestions.add(filmId, key));
+    }
+
+    private void unindexSuggestions(int filmId) {
+        suggestionKeys(filmId).forEach(key -> suggestions.remove(filmId, key));
+    }
+
+    private Set<String> suggestionKeys(int filmId) {
+        Set<String> keys = new HashSet<>();
+        addWordSuffixes(keys, titles.get(filmId));
+        int[] directorIds = directorsByFilm.get(filmId);
+        if (directorIds != null) {
+            for (int directorId : directorIds) {
+                addWordSuffixes(keys, directorNames.get(directorId));
+            }
+        }
+        return keys;
+    }
+
+    //Ключ — хвост строки, начинающийся с каждого слова, чтобы «го» находило «Ночь города»
+    private static void addWordSuffixes(Set<String> keys, String text) {
+        if (text == null) {
+            return;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            if (Character.isLetterOrDigit(text.charAt(i))
+                    && (i == 0 || !Character.isLetterOrDigit(text.charAt(i - 1)))) {
+                keys.add(text.substring(i));
+            }
+        }
+    }
+
+    private Map<Integer, String> loadMissingDirectors(int[] directorIds) {
+        List<Integer> missing = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (int directorId : directorIds) {
+                if (!directorNames.contains(directorId)) {
+                    missing.add(directorId);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        Map<Integer, String> names = new HashMap<>();
+        if (!missing.isEmpty()) {
+            String sql = "SELECT director_id, name FROM directors WHERE director_id = ANY(?)";
+            jdbcTemplate.query(sql, SqlArrays.idsArray(missing), rs -> {
+                names.put(rs.getInt("director_id"), rs.getString("name"));
+            });
+        }
+        return names;
+    }
+
+    private int[] filmsOfDirectors(int[] directorIds) {
+        int[] filmIds = new int[0];
+        for (int directorId : directorIds) {
+            SortedIntSet films = filmsByDirector.get(directorId);
+            if (films != null) {
+                filmIds = union(filmIds, films.toArray());
+            }
+        }
+        return filmIds;
+    }
+
+    //Слияние двух отсортированных массивов без повторов
+    private static int[] union(int[] left, int[] right) {
+        int[] result = new int[left.length + right.length];
+        int i = 0;
+        int j = 0;
+        int count = 0;
+        while (i < left.length || j < right.length) {
+            int next;
+            if (j == right.length || (i < left.length && left[i] < right[j])) {
+                next = left[i++];
+            } else if (i == left.length || right[j] < left[i]) {
+                next = right[j++];
+            } else {
+                next = left[i++];
+                j++;
+            }
+            result[count++] = next;
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    private void link(int filmId, int[] directorIds) {
+        if (directorIds.length == 0) {
+            return;
+        }
+        directorsByFilm.put(filmId, directorIds);
+        for (int directorId : directorIds) {
+            filmsByDirector.computeIfAbsent(directorId, k -> new SortedIntSet()).add(filmId);
+        }
+    }
+
+    private void unlink(int filmId) {
+        int[] directorIds = directorsByFilm.remove(filmId);
+        if (directorIds == null) {
+            return;
+        }
+        for (int directorId : directorIds) {
+            SortedIntSet films = filmsByDirector.get(directorId);
+            if (films != null) {
+                films.remove(filmId);
+                if (films.isEmpty()) {
+                    filmsByDirector.remove(directorId);
+                }
+            }
+        }
+    }
+
+    private static List<Integer> toList(int[] ids, boolean descending) {
+        List<Integer> result = new ArrayList<>(ids.length);
+        for (int i = 0; i < ids.length; i++) {
+            result.add(ids[descending ? ids.length - 1 - i : i]);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,16 @@
+package ru.yandex.practicum.filmorate.storage.search;
+
+import java.util.Locale;
+
+public final class SearchText {
+    private SearchText() {
+    }
+
+    //Регистр не важен, а «ё» и «е» считаем одной буквой, как это обычно делают при поиске по-русски
+    public static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return text.toLowerCase(Locale.ROOT).replace('ё', 'е');
+    }
+}
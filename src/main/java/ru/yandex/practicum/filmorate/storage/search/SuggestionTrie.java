@@ -0,0 +1,236 @@
+package ru.yandex.practicum.filmorate.storage.search;
+
+import ru.yandex.practicum.filmorate.storage.SortedIntSet;
+
+import java.util.*;
+
+//Сжатое префиксное дерево: в каждом узле хранится максимальный вес документа в поддереве,
+//поэтому лучшие по весу документы находятся обходом «сначала лучший» без просмотра всего поддерева
+public class SuggestionTrie {
+    private final Node root = new Node("", null);
+    private final Map<Integer, Integer> scores = new HashMap<>();
+    private final Map<Integer, List<Node>> nodesByDoc = new HashMap<>();
+
+    public void add(int docId, String key) {
+        Node node = root;
+        int position = 0;
+        while (position < key.length()) {
+            Node child = node.child(key.charAt(position));
+            if (child == null) {
+                child = new Node(key.substring(position), node);
+                node.addChild(child);
+                node = child;
+                break;
+            }
+            int common = commonPrefix(child.label, key, position);
+            if (common < child.label.length()) {
+                child = split(child, common);
+            }
+            node = child;
+            position += common;
+        }
+
+        if (node.docs.add(docId)) {
+            nodesByDoc.computeIfAbsent(docId, k -> new ArrayList<>()).add(node);
+            propagate(node);
+        }
+    }
+
+    public void remove(int docId, String key) {
+        Node node = find(key, true);
+        if (node == null || !node.docs.remove(docId)) {
+            return;
+        }
+        List<Node> nodes = nodesByDoc.get(docId);
+        nodes.remove(node);
+        if (nodes.isEmpty()) {
+            nodesByDoc.remove(docId);
+        }
+        prune(node);
+    }
+
+    //Вес хранится отдельно от ключей, чтобы пережить замену ключей документа, поэтому удаляется явно
+    public void forget(int docId) {
+        scores.remove(docId);
+    }
+
+    public void setScore(int docId, int score) {
+        List<Node> nodes = nodesByDoc.get(docId);
+        if (nodes == null) {
+            scores.put(docId, score);
+            return;
+        }
+        Integer previous = scores.put(docId, score);
+        for (Node node : nodes) {
+            if (previous == null || score > previous) {
+                propagate(node);
+            } else {
+                recompute(node);
+            }
+        }
+    }
+
+    public int getScore(int docId) {
+        return scores.getOrDefault(docId, 0);
+    }
+
+    public void clear() {
+        root.children.clear();
+        root.docs = new SortedIntSet();
+        root.maxScore = 0;
+        scores.clear();
+        nodesByDoc.clear();
+    }
+
+    //Документы с ключом, начинающимся с prefix: по убыванию веса, при равенстве — по возрастанию id
+    public List<Integer> top(String prefix, int limit) {
+        Node start = find(prefix, false);
+        if (start == null || limit <= 0) {
+            return Collections.emptyList();
+        }
+
+        PriorityQueue<Candidate> queue = new PriorityQueue<>();
+        queue.add(new Candidate(start.maxScore, 0, start));
+        Set<Integer> seen = new HashSet<>();
+        List<Integer> result = new ArrayList<>(limit);
+        while (!queue.isEmpty() && result.size() < limit) {
+            Candidate candidate = queue.poll();
+            if (candidate.node() == null) {
+                if (seen.add(candidate.docId())) {
+                    result.add(candidate.docId());
+                }
+                continue;
+            }
+            Node node = candidate.node();
+            node.docs.forEach(docId -> queue.add(new Candidate(getScore(docId), docId, null)));
+            for (Node child : node.children) {
+                queue.add(new Candidate(child.maxScore, 0, child));
+            }
+        }
+        return result;
+    }
+
+    private Node find(String key, boolean exact) {
+        Node node = root;
+        int position = 0;
+        while (position < key.length()) {
+            Node child = node.child(key.charAt(position));
+            if (child == null) {
+                return null;
+            }
+            int common = commonPrefix(child.label, key, position);
+            if (position + common == key.length()) {
+                //Префикс может закончиться посреди метки ребра — тогда подходит всё поддерево этого узла
+                return exact && common < child.label.length() ? null : child;
+            }
+            if (common < child.label.length()) {
+                return null;
+            }
+            node = child;
+            position += common;
+        }
+        return node;
+    }
+
+    private Node split(Node child, int at) {
+        Node parent = child.parent;
+        Node middle = new Node(child.label.substring(0, at), parent);
+        parent.replaceChild(child, middle);
+        child.label = child.label.substring(at);
+        child.parent = middle;
+        middle.addChild(child);
+        middle.maxScore = child.maxScore;
+        return middle;
+    }
+
+    private void prune(Node node) {
+        Node current = node;
+        while (current != root && current.docs.isEmpty() && current.children.isEmpty()) {
+            Node parent = current.parent;
+            parent.children.remove(current);
+            current = parent;
+        }
+        recompute(current);
+    }
+
+    //Вес вырос — достаточно поднять максимум вверх по дереву
+    private void propagate(Node node) {
+        int score = ownMax(node);
+        for (Node current = node; current != null && current.maxScore < score; current = current.parent) {
+            current.maxScore = score;
+        }
+    }
+
+    //Вес упал — пересчитываем максимум, пока он меняется
+    private void recompute(Node node) {
+        for (Node current = node; current != null; current = current.parent) {
+            int max = ownMax(current);
+            for (Node child : current.children) {
+                max = Math.max(max, child.maxScore);
+            }
+            if (max == current.maxScore) {
+                break;
+            }
+            current.maxScore = max;
+        }
+    }
+
+    private int ownMax(Node node) {
+        int[] max = {0};
+        node.docs.forEach(docId -> max[0] = Math.max(max[0], getScore(docId)));
+        return max[0];
+    }
+
+    private static int commonPrefix(String label, String key, int offset) {
+        int length = Math.min(label.length(), key.length() - offset);
+        int i = 0;
+        while (i < length && label.charAt(i) == key.charAt(offset + i)) {
+            i++;
+        }
+        return i;
+    }
+
+    private static final class Node {
+        private String label;
+        private Node parent;
+        private final List<Node> children = new ArrayList<>(2);
+        private SortedIntSet docs = new SortedIntSet();
+        private int maxScore;
+
+        private Node(String label, Node parent) {
+            this.label = label;
+            this.parent = parent;
+        }
+
+        private Node child(char first) {
+            for (Node child : children) {
+                if (child.label.charAt(0) == first) {
+                    return child;
+                }
+            }
+            return null;
+        }
+
+        private void addChild(Node child) {
+            children.add(child);
+        }
+
+        private void replaceChild(Node previous, Node replacement) {
+            children.set(children.indexOf(previous), replacement);
+        }
+    }
+
+    //Узлы идут раньше документов с тем же весом, чтобы документ с меньшим id не остался в очереди
+    private record Candidate(int score, int docId, Node node) implements Comparable<Candidate> {
+        @Override
+        public int compareTo(Candidate other) {
+            if (score != other.score) {
+                return Integer.compare(other.score, score);
+            }
+            if ((node == null) != (other.node == null)) {
+                return node != null ? -1 : 1;
+            }
+            return Integer.compare(docId, other.docId);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package ru.yandex.practicum.filmorate.storage.search;
+
+import ru.yandex.practicum.filmorate.storage.SortedIntSet;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+//Индекс подстрок: для каждой тройки подряд идущих символов храним отсортированный список документов
+public class TrigramIndex {
+    private final Map<Long, SortedIntSet> postings = new HashMap<>();
+    private final Map<Integer, String> texts = new HashMap<>();
+
+    public void put(int id, String text) {
+        remove(id);
+        String normalized = SearchText.normalize(text);
+        texts.put(id, normalized);
+        for (long trigram : trigrams(normalized)) {
+            postings.computeIfAbsent(trigram, k -> new SortedIntSet()).add(id);
+        }
+    }
+
+    public void remove(int id) {
+        String text = texts.remove(id);
+        if (text == null) {
+            return;
+        }
+        for (long trigram : trigrams(text)) {
+            SortedIntSet ids = postings.get(trigram);
+            if (ids != null) {
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    postings.remove(trigram);
+                }
+            }
+        }
+    }
+
+    public String get(int id) {
+        return texts.get(id);
+    }
+
+    public boolean contains(int id) {
+        return texts.containsKey(id);
+    }
+
+    public int size() {
+        return texts.size();
+    }
+
+    public void clear() {
+        postings.clear();
+        texts.clear();
+    }
+
+    //Возвращает id документов, содержащих подстроку, по возрастанию
+    public int[] search(String query) {
+        String normalized = SearchText.normalize(query);
+        if (normalized.length() < 3) {
+            return scan(normalized);
+        }
+
+        SortedIntSet candidates = null;
+        for (long trigram : trigrams(normalized)) {
+            SortedIntSet ids = postings.get(trigram);
+            if (ids == null) {
+                return new int[0];
+            }
+            if (candidates == null || ids.size() < candidates.size()) {
+                candidates = ids;
+            }
+        }
+
+        //Совпадение всех троек ещё не означает совпадение подстроки, поэтому кандидатов проверяем
+        int[] result = new int[candidates.size()];
+        int[] count = new int[1];
+        candidates.forEach(id -> {
+            if (texts.get(id).contains(normalized)) {
+                result[count[0]++] = id;
+            }
+        });
+        return Arrays.copyOf(result, count[0]);
+    }
+
+    private int[] scan(String normalized) {
+        int[] result = new int[texts.size()];
+        int count = 0;
+        for (Map.Entry<Integer, String> entry : texts.entrySet()) {
+            if (entry.getValue().contains(normalized)) {
+                result[count++] = entry.getKey();
+            }
+        }
+        result = Arrays.copyOf(result, count);
+        Arrays.sort(result);
+        return result;
+    }
+
+    private static Set<Long> trigrams(String text) {
+        Set<Long> result = new HashSet<>();
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            result.add(((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2));
+        }
+        return result;
+    }
+}
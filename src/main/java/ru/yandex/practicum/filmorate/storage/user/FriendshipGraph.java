@@ -0,0 +1,136 @@
+package ru.yandex.practicum.filmorate.storage.user;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.service.events.FriendshipChangedEvent;
+import ru.yandex.practicum.filmorate.service.events.UserDeletedEvent;
+import ru.yandex.practicum.filmorate.storage.SortedIntSet;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+//Дружба односторонняя: friends хранит, кого добавил пользователь, followers — кто добавил его
+@Slf4j
+@Component
+public class FriendshipGraph {
+    private static final SortedIntSet EMPTY = new SortedIntSet();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Integer, SortedIntSet> friends = new HashMap<>();
+    private final Map<Integer, SortedIntSet> followers = new HashMap<>();
+
+    public FriendshipGraph(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<int[]> edges = jdbcTemplate.query("SELECT user_id, friend_id FROM friendships",
+                (rs, rowNum) -> new int[]{rs.getInt("user_id"), rs.getInt("friend_id")});
+
+        lock.writeLock().lock();
+        try {
+            friends.clear();
+            followers.clear();
+            edges.forEach(edge -> link(edge[0], edge[1]));
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Граф дружбы построен: {} пользователей, {} связей", friends.size(), edges.size());
+    }
+
+    public int[] getFriendIds(int userId) {
+        lock.readLock().lock();
+        try {
+            return friends.getOrDefault(userId, EMPTY).toArray();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    //Пересечение двух отсортированных списков друзей, id по возрастанию
+    public int[] getCommonFriendIds(int userId, int otherId) {
+        lock.readLock().lock();
+        try {
+            return friends.getOrDefault(userId, EMPTY).intersection(friends.getOrDefault(otherId, EMPTY));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    //Друзья друзей, ещё не добавленные пользователем: по убыванию числа общих друзей, при равенстве — по id
+    public List<Integer> getSuggestedFriendIds(int userId, int limit) {
+        Map<Integer, Integer> mutualCounts = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            SortedIntSet own = friends.getOrDefault(userId, EMPTY);
+            own.forEach(friendId -> friends.getOrDefault(friendId, EMPTY).forEach(candidateId -> {
+                if (candidateId != userId && !own.contains(candidateId)) {
+                    mutualCounts.merge(candidateId, 1, Integer::sum);
+                }
+            }));
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        return mutualCounts.entrySet().stream()
+                .sorted(Map.Entry.<Integer, Integer>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    @EventListener
+    public void onFriendshipChanged(FriendshipChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (event.added()) {
+                link(event.userId(), event.friendId());
+            } else {
+                unlink(event.userId(), event.friendId());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    //Связи удалённого пользователя в базе удаляются каскадно в обе стороны
+    @EventListener
+    public void onUserDeleted(UserDeletedEvent event) {
+        lock.writeLock().lock();
+        try {
+            friends.getOrDefault(event.userId(), EMPTY).forEach(friendId -> remove(followers, friendId, event.userId()));
+            followers.getOrDefault(event.userId(), EMPTY).forEach(followerId -> remove(friends, followerId, event.userId()));
+            friends.remove(event.userId());
+            followers.remove(event.userId());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void link(int userId, int friendId) {
+        friends.computeIfAbsent(userId, k -> new SortedIntSet()).add(friendId);
+        followers.computeIfAbsent(friendId, k -> new SortedIntSet()).add(userId);
+    }
+
+    private void unlink(int userId, int friendId) {
+        remove(friends, userId, friendId);
+        remove(followers, friendId, userId);
+    }
+
+    private static void remove(Map<Integer, SortedIntSet> adjacency, int from, int to) {
+        SortedIntSet set = adjacency.get(from);
+        if (set != null) {
+            set.remove(to);
+            if (set.isEmpty()) {
+                adjacency.remove(from);
+            }
+        }
+    }
+}
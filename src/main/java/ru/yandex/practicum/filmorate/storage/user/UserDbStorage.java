@@ -5,7 +5,10 @@ import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.IdBitmap;
+import ru.yandex.practicum.filmorate.storage.SqlArrays;
 
 import java.sql.Date;
 import java.sql.*;
@@ -15,11 +18,28 @@ import java.util.*;
 
 public class UserDbStorage implements UserStorage {
     private final JdbcTemplate jdbcTemplate;
+    private final IdBitmap userIds = new IdBitmap();
 
     private static final String DELETE_USER_QUERY = """
             DELETE FROM USERS
             WHERE user_id = ?
             """;
+    private static final String GET_ALL_USER_IDS_QUERY = "SELECT user_id FROM users";
+    private static final String USER_EXISTS_QUERY = "SELECT EXISTS (SELECT 1 FROM users WHERE user_id = ?)";
+    private static final String DECREASE_LIKES_OF_USER_QUERY = """
+            UPDATE films
+            SET likes_count = likes_count - 1
+            WHERE film_id IN (SELECT film_id FROM film_likes WHERE user_id = ?)
+            """;
+    //Реакции пользователя удаляются каскадно, а полезность отзывов хранится накопленной суммой, поэтому снимаем их вклад
+    private static final String REVERT_REACTIONS_OF_USER_QUERY = """
+            UPDATE reviews r
+            SET useful = useful - (SELECT CASE WHEN rl.is_like THEN 1 ELSE -1 END
+                                   FROM review_likes rl WHERE rl.review_id = r.review_id AND rl.user_id = ?)
+            WHERE review_id IN (SELECT review_id FROM review_likes WHERE user_id = ?)
+            """;
+    public static final String GET_FRIENDS_QUERY =
+            "SELECT u.* FROM users u JOIN friendships f ON u.user_id = f.friend_id WHERE f.user_id = ?";
 
     public UserDbStorage(JdbcTemplate jdbcTemplate) {
         this.jdbcTemplate = jdbcTemplate;
@@ -43,6 +63,7 @@ public class UserDbStorage implements UserStorage {
         }, keyHolder);
 
         user.setId(keyHolder.getKey().intValue());
+        loadedUserIds().add(user.getId());
         return user;
     }
 
@@ -73,51 +94,88 @@ public class UserDbStorage implements UserStorage {
     }
 
     @Override
+    @Transactional
     public void deleteUser(User user) {
+        jdbcTemplate.update(DECREASE_LIKES_OF_USER_QUERY, user.getId());
+        jdbcTemplate.update(REVERT_REACTIONS_OF_USER_QUERY, user.getId(), user.getId());
         jdbcTemplate.update(DELETE_USER_QUERY, user.getId());
+        loadedUserIds().remove(user.getId());
+    }
+
+    @Override
+    public boolean existsById(int id) {
+        if (loadedUserIds().contains(id)) {
+            return true;
+        }
+        boolean exists = Boolean.TRUE.equals(jdbcTemplate.queryForObject(USER_EXISTS_QUERY, Boolean.class, id));
+        if (exists) {
+            userIds.add(id);
+        }
+        return exists;
     }
 
+    //Пользователи и дружбы читаются отдельными запросами, без строки на каждую связь
     @Override
     public List<User> getAllUsers() {
-        String sql = """
-                    SELECT
-                    u.user_id as user_id,
-                    u.email,
-                    u.login,
-                    u.name,
-                    u.birthday,
-                    f.friend_id
-                FROM users u
-                LEFT JOIN friendships f ON u.user_id = f.user_id
-                """;
-
-        Map<Integer, User> usersMap = new HashMap<>();
-
-        jdbcTemplate.query(sql, rs -> {
-            int userId = rs.getInt("user_id");
-
-            User user = usersMap.computeIfAbsent(userId, id -> {
-                User newUser = new User();
-                newUser.setId(id);
-                try {
-                    newUser.setEmail(rs.getString("email"));
-                    newUser.setLogin(rs.getString("login"));
-                    newUser.setName(rs.getString("name"));
-                    newUser.setBirthday(rs.getDate("birthday").toLocalDate());
-                } catch (SQLException e) {
-                    throw new RuntimeException(e);
-                }
-                newUser.setFriends(new HashSet<>());
-                return newUser;
-            });
+        List<User> users = jdbcTemplate.query("SELECT * FROM users ORDER BY user_id", this::mapRowToUser);
 
-            int friendId = rs.getInt("friend_id");
-            if (friendId != 0 && !usersMap.containsKey(friendId)) {
-                user.getFriends().add((long) friendId);
+        Map<Integer, User> usersById = new HashMap<>();
+        users.forEach(user -> {
+            user.setFriends(new HashSet<>());
+            usersById.put(user.getId(), user);
+        });
+        jdbcTemplate.query("SELECT user_id, friend_id FROM friendships", rs -> {
+            User user = usersById.get(rs.getInt("user_id"));
+            if (user != null) {
+                user.getFriends().add(rs.getLong("friend_id"));
             }
         });
+        return users;
+    }
+
+    @Override
+    public List<User> getUsersByIds(Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Map<Integer, User> usersById = new HashMap<>();
+        jdbcTemplate.query("SELECT * FROM users WHERE user_id = ANY(?)", SqlArrays.idsArray(ids),
+                rs -> {
+                    User user = mapRowToUser(rs, 0);
+                    usersById.put(user.getId(), user);
+                });
+
+        //Возвращаем пользователей в том же порядке, в каком были переданы id
+        return ids.stream()
+                .map(usersById::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
 
-        return new ArrayList<>(usersMap.values());
+    @Override
+    public List<User> getUsersPage(int afterId, int limit) {
+        String sql = "SELECT * FROM users WHERE user_id > ? ORDER BY user_id LIMIT ?";
+        List<User> users = jdbcTemplate.query(connection -> {
+            PreparedStatement stmt = connection.prepareStatement(sql);
+            stmt.setFetchSize(limit);
+            stmt.setInt(1, afterId);
+            stmt.setInt(2, limit);
+            return stmt;
+        }, this::mapRowToUser);
+        if (users.isEmpty()) {
+            return users;
+        }
+
+        Map<Integer, User> usersById = new HashMap<>();
+        users.forEach(user -> {
+            user.setFriends(new HashSet<>());
+            usersById.put(user.getId(), user);
+        });
+        String friendsSql = "SELECT user_id, friend_id FROM friendships WHERE user_id = ANY(?)";
+        jdbcTemplate.query(friendsSql, SqlArrays.idsArray(usersById.keySet()), rs -> {
+            usersById.get(rs.getInt("user_id")).getFriends().add(rs.getLong("friend_id"));
+        });
+        return users;
     }
 
     @Override
@@ -134,17 +192,7 @@ public class UserDbStorage implements UserStorage {
 
     @Override
     public List<User> getFriends(int userId) {
-        String sql = "SELECT u.* FROM users u JOIN friendships f ON u.user_id = f.friend_id WHERE f.user_id = ?";
-        return jdbcTemplate.query(sql, this::mapRowToUser, userId);
-    }
-
-    @Override
-    public List<User> getCommonFriends(int userId, int otherId) {
-        String sql = "SELECT u.* FROM users u " +
-                     "JOIN friendships f1 ON u.user_id = f1.friend_id " +
-                     "JOIN friendships f2 ON u.user_id = f2.friend_id " +
-                     "WHERE f1.user_id = ? AND f2.user_id = ?";
-        return jdbcTemplate.query(sql, this::mapRowToUser, userId, otherId);
+        return jdbcTemplate.query(GET_FRIENDS_QUERY, this::mapRowToUser, userId);
     }
 
     private User mapRowToUser(ResultSet rs, int rowNum) throws SQLException {
@@ -155,6 +203,17 @@ public class UserDbStorage implements UserStorage {
                 rs.getDate("birthday").toLocalDate());
     }
 
+    private IdBitmap loadedUserIds() {
+        if (!userIds.isLoaded()) {
+            synchronized (userIds) {
+                if (!userIds.isLoaded()) {
+                    userIds.load(jdbcTemplate.queryForList(GET_ALL_USER_IDS_QUERY, Integer.class));
+                }
+            }
+        }
+        return userIds;
+    }
+
     private void loadFriends(User user) {
         String sql = "SELECT friend_id FROM friendships WHERE user_id = ?";
         List<Long> friends = jdbcTemplate.query(sql,
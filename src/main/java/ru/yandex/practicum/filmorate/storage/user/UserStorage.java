@@ -2,6 +2,7 @@ package ru.yandex.practicum.filmorate.storage.user;
 
 import ru.yandex.practicum.filmorate.model.User;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -12,8 +13,14 @@ public interface UserStorage {
 
     List<User> getAllUsers();
 
+    List<User> getUsersPage(int afterId, int limit);
+
     Optional<User> getUserById(int id);
 
+    List<User> getUsersByIds(Collection<Integer> ids);
+
+    boolean existsById(int id);
+
     void deleteUser(User user);
 
     void addFriend(int userId, int friendId);
@@ -21,6 +28,4 @@ public interface UserStorage {
     void removeFriend(int userId, int friendId);
 
     List<User> getFriends(int userId);
-
-    List<User> getCommonFriends(int userId, int otherId);
 }
\ No newline at end of file
@@ -0,0 +1,86 @@
+-- Схема в том виде, в каком её создавал schema.sql до перехода на миграции: такая база принимается за версию 1
+CREATE TABLE IF NOT EXISTS mpa_ratings (
+    mpa_id INT PRIMARY KEY,
+    name VARCHAR(10) NOT NULL,
+    description VARCHAR(200)
+);
+
+CREATE TABLE IF NOT EXISTS genres (
+    genre_id INT PRIMARY KEY,
+    name VARCHAR(50) NOT NULL UNIQUE
+);
+
+CREATE TABLE IF NOT EXISTS directors (
+    director_id INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name VARCHAR(100) NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS users (
+    user_id INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    email VARCHAR(255) NOT NULL UNIQUE,
+    login VARCHAR(50) NOT NULL UNIQUE,
+    name VARCHAR(100),
+    birthday DATE NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS films (
+    film_id INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name VARCHAR(100) NOT NULL,
+    description VARCHAR(200),
+    release_date DATE NOT NULL,
+    duration INT NOT NULL,
+    mpa_id INT REFERENCES mpa_ratings(mpa_id)
+);
+
+CREATE TABLE IF NOT EXISTS film_genres (
+    film_id INT REFERENCES films(film_id) ON DELETE CASCADE,
+    genre_id INT REFERENCES genres(genre_id) ON DELETE CASCADE,
+    PRIMARY KEY (film_id, genre_id)
+);
+
+CREATE TABLE IF NOT EXISTS film_likes (
+    film_id INT REFERENCES films(film_id) ON DELETE CASCADE,
+    user_id INT REFERENCES users(user_id) ON DELETE CASCADE,
+    PRIMARY KEY (film_id, user_id)
+);
+
+CREATE TABLE IF NOT EXISTS friendships (
+    user_id INT REFERENCES users(user_id) ON DELETE CASCADE,
+    friend_id INT REFERENCES users(user_id) ON DELETE CASCADE,
+    PRIMARY KEY (user_id, friend_id)
+);
+
+CREATE TABLE IF NOT EXISTS film_directors (
+    film_id INT REFERENCES films(film_id) ON DELETE CASCADE,
+    director_id INT REFERENCES directors(director_id) ON DELETE CASCADE,
+    PRIMARY KEY (film_id, director_id)
+);
+
+CREATE TABLE IF NOT EXISTS reviews (
+    review_id INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    content TEXT NOT NULL,
+    is_positive BOOLEAN NOT NULL,
+    film_id INT,
+    user_id INT,
+    FOREIGN KEY (film_id) REFERENCES films(film_id) ON UPDATE CASCADE ON DELETE CASCADE,
+    FOREIGN KEY (user_id) REFERENCES users(user_id) ON UPDATE CASCADE ON DELETE CASCADE,
+    useful INT NOT NULL DEFAULT 0
+);
+
+CREATE TABLE IF NOT EXISTS review_likes (
+    review_id INT,
+    user_id INT,
+    is_like BOOLEAN NOT NULL,
+    PRIMARY KEY (review_id, user_id),
+    FOREIGN KEY (review_id) REFERENCES reviews(review_id) ON DELETE CASCADE,
+    FOREIGN KEY (user_id) REFERENCES users(user_id) ON DELETE CASCADE
+);
+
+CREATE TABLE IF NOT EXISTS events (
+    event_id INT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id INT NOT NULL REFERENCES users(user_id) ON DELETE CASCADE,
+    entity_id INT NOT NULL,
+    event_type VARCHAR(10) NOT NULL CHECK (event_type IN ('LIKE', 'REVIEW', 'FRIEND')),
+    operation VARCHAR(10) NOT NULL CHECK (operation IN ('REMOVE', 'ADD', 'UPDATE')),
+    timestamp BIGINT NOT NULL
+);
@@ -0,0 +1,7 @@
+-- Денормализованный счётчик лайков: заполняем по уже поставленным лайкам, дальше его ведёт приложение
+ALTER TABLE films ADD COLUMN IF NOT EXISTS likes_count INT NOT NULL DEFAULT 0;
+
+UPDATE films f
+SET likes_count = (SELECT COUNT(*) FROM film_likes fl WHERE fl.film_id = f.film_id);
+
+CREATE INDEX IF NOT EXISTS films_likes_count_idx ON films (likes_count DESC, film_id);
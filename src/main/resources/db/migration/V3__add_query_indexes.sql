@@ -0,0 +1,8 @@
+-- Индексы под запросы по пользователю, режиссёру, дате выхода, ленте событий и полезности отзывов
+CREATE INDEX IF NOT EXISTS films_release_date_idx ON films (release_date);
+CREATE INDEX IF NOT EXISTS film_likes_user_idx ON film_likes (user_id, film_id);
+CREATE INDEX IF NOT EXISTS friendships_friend_idx ON friendships (friend_id, user_id);
+CREATE INDEX IF NOT EXISTS film_directors_director_idx ON film_directors (director_id, film_id);
+CREATE INDEX IF NOT EXISTS reviews_film_useful_idx ON reviews (film_id, useful DESC);
+CREATE INDEX IF NOT EXISTS reviews_useful_idx ON reviews (useful DESC, review_id);
+CREATE INDEX IF NOT EXISTS events_user_event_idx ON events (user_id, event_id);
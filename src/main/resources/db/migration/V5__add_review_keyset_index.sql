@@ -0,0 +1,3 @@
+-- Индекс покрывает и фильтр по фильму, и порядок страниц (useful DESC, review_id)
+DROP INDEX IF EXISTS reviews_film_useful_idx;
+CREATE INDEX IF NOT EXISTS reviews_film_useful_review_idx ON reviews (film_id, useful DESC, review_id);
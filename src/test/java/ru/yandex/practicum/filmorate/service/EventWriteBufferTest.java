@@ -0,0 +1,137 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import ru.yandex.practicum.filmorate.model.feed.Event;
+import ru.yandex.practicum.filmorate.storage.event.EventStorage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EventWriteBufferTest {
+    private final List<Event> written = new ArrayList<>();
+    private int failures;
+    private Integer rejectedEventId;
+    private Runnable duringFailure = () -> { };
+    private final Set<Thread> writers = ConcurrentHashMap.newKeySet();
+    private EventStorage storage;
+    private EventWriteBuffer buffer;
+
+    @BeforeEach
+    void setUp() {
+        storage = new EventStorage() {
+            @Override
+            public List<Event> getEventsByUserId(int userId) {
+                return List.of();
+            }
+
+            @Override
+            public List<Event> getEventsByUserId(int userId, int beforeId, int limit) {
+                return List.of();
+            }
+
+            @Override
+            public int getMaxEventId() {
+                return 0;
+            }
+
+            @Override
+            public void addEvents(List<Event> events) {
+                if (failures > 0) {
+                    failures--;
+                    duringFailure.run();
+                    throw new DataAccessResourceFailureException("База недоступна");
+                }
+                if (events.stream().anyMatch(event -> event.getEventId().equals(rejectedEventId))) {
+                    throw new DataIntegrityViolationException("Пользователь удалён");
+                }
+                writers.add(Thread.currentThread());
+                written.addAll(events);
+            }
+        };
+        buffer = new EventWriteBuffer(storage, 100, 100, false);
+    }
+
+    @Test
+    void shouldKeepEventsWhenFlushFails() {
+        failures = 2;
+        buffer.enqueue(event(1));
+        buffer.enqueue(event(2));
+
+        buffer.flush();
+        buffer.enqueue(event(3));
+        buffer.flush();
+        assertThat(written).isEmpty();
+
+        buffer.flush();
+        assertThat(ids()).containsExactly(1, 2, 3);
+    }
+
+    @Test
+    void shouldDropOnlyEventsRejectedByConstraints() {
+        rejectedEventId = 2;
+        buffer.enqueue(event(1));
+        buffer.enqueue(event(2));
+        buffer.enqueue(event(3));
+
+        buffer.flush();
+        buffer.flush();
+
+        assertThat(ids()).containsExactly(1, 3);
+    }
+
+    @Test
+    void shouldDropOldestEventsWhenRequeueOverflows() {
+        EventWriteBuffer small = new EventWriteBuffer(storage, 3, 100, false);
+        failures = 1;
+        //Пока пачка пишется, в очередь успевают встать новые события
+        duringFailure = () -> {
+            small.enqueue(event(3));
+            small.enqueue(event(4));
+        };
+        small.enqueue(event(1));
+        small.enqueue(event(2));
+        small.flush();
+
+        small.flush();
+
+        assertThat(ids()).containsExactly(2, 3, 4);
+    }
+
+    @Test
+    void shouldFlushFullQueueOnBackgroundVirtualThread() throws InterruptedException {
+        EventWriteBuffer small = new EventWriteBuffer(storage, 10, 2, true);
+        small.enqueue(event(1));
+        small.enqueue(event(2));
+        small.enqueue(event(3));
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (writers.isEmpty() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(writers).isNotEmpty().doesNotContain(Thread.currentThread()).allMatch(Thread::isVirtual);
+        small.shutdown();
+        assertThat(ids()).containsExactly(1, 2, 3);
+    }
+
+    private List<Integer> ids() {
+        return written.stream().map(Event::getEventId).toList();
+    }
+
+    private static Event event(int id) {
+        return Event.builder()
+                .eventId(id)
+                .userId(1)
+                .entityId(1)
+                .eventType("LIKE")
+                .operation("ADD")
+                .build();
+    }
+}
@@ -0,0 +1,188 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.model.feed.Event;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@Sql(executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD,
+        scripts = "classpath:clear_tables.sql")
+class FeedStreamServiceTest {
+    private final UserStorage userStorage;
+
+    private final List<RecordingEmitter> emitters = new CopyOnWriteArrayList<>();
+    private FeedStreamService service;
+    private int userId;
+
+    @BeforeEach
+    void setUp() {
+        userId = userStorage.addUser(new User("user@yandex.ru", "user", "user", LocalDate.of(1990, 1, 1))).getId();
+        //Heartbeat длиннее теста, чтобы в поток не попадали ping-комментарии
+        service = new FeedStreamService(userStorage, 2, Duration.ofMinutes(1), Duration.ofMinutes(1), 10) {
+            @Override
+            SseEmitter createEmitter(long timeoutMs) {
+                RecordingEmitter emitter = new RecordingEmitter(timeoutMs);
+                emitters.add(emitter);
+                return emitter;
+            }
+        };
+    }
+
+    @AfterEach
+    void tearDown() {
+        emitters.forEach(emitter -> emitter.release.countDown());
+        service.shutdown();
+    }
+
+    @Test
+    void shouldDeliverEventsInPublishOrder() throws InterruptedException {
+        RecordingEmitter emitter = subscribe();
+        emitter.release.countDown();
+
+        for (int id = 1; id <= 2; id++) {
+            service.publish(event(id));
+        }
+        awaitUntil(() -> emitter.sent.size() == 2);
+        for (int id = 3; id <= 4; id++) {
+            service.publish(event(id));
+        }
+        awaitUntil(() -> emitter.sent.size() == 4);
+
+        assertThat(emitter.sent).extracting(data -> ((Event) data).getEventId()).containsExactly(1, 2, 3, 4);
+    }
+
+    @Test
+    void shouldDropOldestEventsAndReportOverflow() throws InterruptedException {
+        RecordingEmitter emitter = subscribe();
+
+        service.publish(event(1));
+        //Клиент завис на отправке первого события, а очередь на два события переполняется
+        assertThat(emitter.sending.await(5, TimeUnit.SECONDS)).isTrue();
+        for (int id = 2; id <= 5; id++) {
+            service.publish(event(id));
+        }
+        emitter.release.countDown();
+        awaitUntil(() -> emitter.sent.size() == 4);
+
+        assertThat(emitter.sent).hasSize(4);
+        assertThat(((Event) emitter.sent.get(0)).getEventId()).isEqualTo(1);
+        assertThat(emitter.sent.get(1)).isEqualTo(2);
+        assertThat(((Event) emitter.sent.get(2)).getEventId()).isEqualTo(4);
+        assertThat(((Event) emitter.sent.get(3)).getEventId()).isEqualTo(5);
+    }
+
+    @Test
+    void shouldRemoveSubscriberOnCompletion() {
+        RecordingEmitter first = subscribe();
+        RecordingEmitter second = subscribe();
+        assertThat(service.getSubscriberCount()).isEqualTo(2);
+
+        first.completion.run();
+        assertThat(service.getSubscriberCount()).isEqualTo(1);
+        assertThat(service.getSubscribedUserCount()).isEqualTo(1);
+
+        second.completion.run();
+        second.completion.run();
+        assertThat(service.getSubscriberCount()).isZero();
+        assertThat(service.getSubscribedUserCount()).isZero();
+    }
+
+    @Test
+    void shouldRemoveSubscriberOnTimeout() throws InterruptedException {
+        RecordingEmitter emitter = subscribe();
+        emitter.release.countDown();
+
+        emitter.timeout.run();
+        service.publish(event(1));
+
+        assertThat(service.getSubscriberCount()).isZero();
+        assertThat(service.getSubscribedUserCount()).isZero();
+        Thread.sleep(100);
+        assertThat(emitter.sent).isEmpty();
+    }
+
+    private RecordingEmitter subscribe() {
+        service.subscribe(userId);
+        return emitters.get(emitters.size() - 1);
+    }
+
+    private Event event(int id) {
+        return Event.builder()
+                .eventId(id)
+                .userId(userId)
+                .entityId(1)
+                .eventType("LIKE")
+                .operation("ADD")
+                .build();
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("Условие не выполнилось за 5 секунд").isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    //Запоминает отправленные данные вместо записи в HTTP-ответ; отправка ждёт release
+    private static class RecordingEmitter extends SseEmitter {
+        private final List<Object> sent = new CopyOnWriteArrayList<>();
+        private final CountDownLatch sending = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+        private volatile Runnable completion;
+        private volatile Runnable timeout;
+
+        private RecordingEmitter(long timeoutMs) {
+            super(timeoutMs);
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            sending.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            }
+            builder.build().stream()
+                    .map(DataWithMediaType::getData)
+                    .filter(data -> !(data instanceof String))
+                    .forEach(sent::add);
+        }
+
+        @Override
+        public synchronized void onCompletion(Runnable callback) {
+            completion = callback;
+            super.onCompletion(callback);
+        }
+
+        @Override
+        public synchronized void onTimeout(Runnable callback) {
+            timeout = callback;
+            super.onTimeout(callback);
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.practicum.filmorate.exception.InternalServerException;
+import ru.yandex.practicum.filmorate.exception.TooManyRequestsException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
+import ru.yandex.practicum.filmorate.model.MpaRating;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.model.feed.Event;
+import ru.yandex.practicum.filmorate.model.feed.EventOperation;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@Sql(executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD,
+        scripts = "classpath:clear_tables.sql")
+class LikeWriteBufferTest {
+    private final LikeWriteBuffer likeWriteBuffer;
+    private final FilmStorage filmStorage;
+    private final UserStorage userStorage;
+    private final EventService eventService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PlatformTransactionManager transactionManager;
+    private final JdbcTemplate jdbcTemplate;
+
+    private final List<Integer> filmIds = new ArrayList<>();
+    private int userId;
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < 5; i++) {
+            Film film = new Film("Фильм " + i, "Описание", LocalDate.of(2000, 1, 1), 90);
+            film.setMpa(new MpaRating(1, "G"));
+            film.setGenres(List.of());
+            filmIds.add(filmStorage.addFilm(film).getId());
+        }
+        userId = userStorage.addUser(new User("likes@yandex.ru", "likes", "Лайки", LocalDate.of(1990, 1, 1)))
+                .getId();
+    }
+
+    @Test
+    void shouldCoalesceTogglesOfOnePair() {
+        int liked = filmIds.get(0);
+        int unliked = filmIds.get(1);
+
+        likeWriteBuffer.enqueue(List.of(
+                like(liked, EventOperation.ADD),
+                like(unliked, EventOperation.ADD),
+                like(liked, EventOperation.REMOVE),
+                like(unliked, EventOperation.REMOVE),
+                like(liked, EventOperation.ADD)));
+
+        assertThat(likedFilmIds()).containsExactly(liked);
+        assertThat(likesCount(liked)).isEqualTo(1);
+        assertThat(likesCount(unliked)).isZero();
+        assertThat(eventService.getEventsByUserId(userId, null, null))
+                .extracting(Event::getEntityId, Event::getOperation)
+                .containsExactly(tuple(liked, "ADD"));
+    }
+
+    @Test
+    void shouldRejectWholeRequestWhenQueueIsFull() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        TransactionTemplate blockingTemplate = new TransactionTemplate(transactionManager) {
+            @Override
+            public <T> T execute(TransactionCallback<T> action) {
+                writing.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.execute(action);
+            }
+        };
+        LikeWriteBuffer buffer = new LikeWriteBuffer(filmStorage, eventService, blockingTemplate, eventPublisher,
+                3, 100, 200, false);
+
+        //Первая пачка застревает в записи, вторая занимает два места из трёх
+        CompletableFuture<Void> first = CompletableFuture.runAsync(() ->
+                buffer.enqueue(List.of(like(filmIds.get(0), EventOperation.ADD))));
+        awaitUntil(() -> buffer.pendingSize() == 1);
+        CompletableFuture<Void> flushing = CompletableFuture.runAsync(buffer::flush);
+        assertThat(writing.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<Void> second = CompletableFuture.runAsync(() -> buffer.enqueue(List.of(
+                like(filmIds.get(1), EventOperation.ADD),
+                like(filmIds.get(2), EventOperation.ADD))));
+        awaitUntil(() -> buffer.pendingSize() == 2);
+
+        assertThatThrownBy(() -> buffer.enqueue(List.of(
+                like(filmIds.get(3), EventOperation.ADD),
+                like(filmIds.get(4), EventOperation.ADD))))
+                .isInstanceOf(TooManyRequestsException.class);
+        assertThat(buffer.pendingSize()).isEqualTo(2);
+
+        release.countDown();
+        CompletableFuture.allOf(first, flushing, second).get(5, TimeUnit.SECONDS);
+        buffer.shutdown();
+        assertThat(likedFilmIds()).containsExactlyInAnyOrder(filmIds.get(0), filmIds.get(1), filmIds.get(2));
+    }
+
+    @Test
+    void shouldRetryOperationsOneByOneWhenBatchFails() {
+        int filmId = filmIds.get(0);
+
+        assertThatThrownBy(() -> likeWriteBuffer.enqueue(List.of(
+                like(filmId, EventOperation.ADD),
+                like(filmId + 1000, EventOperation.ADD))))
+                .isInstanceOf(InternalServerException.class)
+                .hasMessageContaining(String.valueOf(filmId + 1000));
+
+        assertThat(likedFilmIds()).containsExactly(filmId);
+        assertThat(likesCount(filmId)).isEqualTo(1);
+    }
+
+    private LikeOperation like(int filmId, EventOperation operation) {
+        return new LikeOperation(filmId, userId, operation);
+    }
+
+    private List<Integer> likedFilmIds() {
+        return jdbcTemplate.queryForList("SELECT film_id FROM film_likes WHERE user_id = ? ORDER BY film_id",
+                Integer.class, userId);
+    }
+
+    private int likesCount(int filmId) {
+        return jdbcTemplate.queryForObject("SELECT likes_count FROM films WHERE film_id = ?", Integer.class, filmId);
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("Условие не выполнилось за 5 секунд").isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+}
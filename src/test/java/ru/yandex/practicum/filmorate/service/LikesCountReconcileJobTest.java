@@ -0,0 +1,67 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.MpaRating;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.FilmLikesLeaderboard;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@Sql(executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD,
+        scripts = "classpath:clear_tables.sql")
+class LikesCountReconcileJobTest {
+    private final LikesCountReconcileJob reconcileJob;
+    private final FilmLikesLeaderboard leaderboard;
+    private final FilmStorage filmStorage;
+    private final UserStorage userStorage;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Test
+    void shouldRepairCorruptedLikesCountAndRebuildLeaderboard() {
+        int userId = userStorage.addUser(new User("user@yandex.ru", "user", "user", LocalDate.of(1990, 1, 1))).getId();
+        int liked = addFilm("Понравившийся");
+        int other = addFilm("Другой");
+        filmStorage.addLike(liked, userId);
+
+        //Счётчик разошёлся с таблицей лайков, например после правки базы вручную
+        jdbcTemplate.update("UPDATE films SET likes_count = 0 WHERE film_id = ?", liked);
+        jdbcTemplate.update("UPDATE films SET likes_count = 5 WHERE film_id = ?", other);
+        leaderboard.rebuild();
+        assertThat(leaderboard.getTopFilmIds(10, filmId -> true)).containsExactly(other, liked);
+
+        assertThat(reconcileJob.reconcile()).isEqualTo(2);
+
+        assertThat(likesCount(liked)).isEqualTo(1);
+        assertThat(likesCount(other)).isZero();
+        assertThat(leaderboard.getTopFilmIds(10, filmId -> true)).containsExactly(liked, other);
+        assertThat(leaderboard.getLikes(liked)).isEqualTo(1);
+        assertThat(leaderboard.getLikes(other)).isZero();
+        assertThat(reconcileJob.reconcile()).isZero();
+    }
+
+    private int addFilm(String name) {
+        Film film = new Film(name, "Описание", LocalDate.of(2000, 1, 1), 90);
+        film.setMpa(new MpaRating(1, "G"));
+        film.setGenres(List.of());
+        return filmStorage.addFilm(film).getId();
+    }
+
+    private int likesCount(int filmId) {
+        return jdbcTemplate.queryForObject("SELECT likes_count FROM films WHERE film_id = ?", Integer.class, filmId);
+    }
+}
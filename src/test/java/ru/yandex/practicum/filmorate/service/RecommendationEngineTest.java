@@ -0,0 +1,50 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.service.events.FilmDeletedEvent;
+import ru.yandex.practicum.filmorate.service.events.FilmLikeChangedEvent;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RecommendationEngineTest {
+
+    @Test
+    void shouldRecommendFilmsOfMostSimilarUser() {
+        RecommendationEngine engine = new RecommendationEngine(null, "overlap", 50);
+        like(engine, 1, 1, 2);
+        like(engine, 2, 1, 2, 3);
+        like(engine, 3, 1, 4);
+
+        assertThat(engine.recommend(1)).containsExactly(3);
+    }
+
+    @Test
+    void shouldUpdateRecommendationsIncrementally() {
+        RecommendationEngine engine = new RecommendationEngine(null, "jaccard", 50);
+        like(engine, 1, 1);
+        like(engine, 2, 1, 2);
+
+        assertThat(engine.recommend(1)).containsExactly(2);
+
+        engine.onLikeChanged(new FilmLikeChangedEvent(1, 2, false));
+        assertThat(engine.recommend(1)).isEmpty();
+
+        engine.onLikeChanged(new FilmLikeChangedEvent(1, 2, true));
+        engine.onFilmDeleted(new FilmDeletedEvent(2));
+        assertThat(engine.recommend(1)).isEmpty();
+    }
+
+    @Test
+    void shouldReturnNothingForUserWithoutLikes() {
+        RecommendationEngine engine = new RecommendationEngine(null, "cosine", 50);
+        like(engine, 2, 1, 2);
+
+        assertThat(engine.recommend(1)).isEmpty();
+    }
+
+    private void like(RecommendationEngine engine, int userId, int... filmIds) {
+        for (int filmId : filmIds) {
+            engine.onLikeChanged(new FilmLikeChangedEvent(filmId, userId, true));
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.service.events.FilmLikeChangedEvent;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RecommendationSnapshotStoreTest {
+    private final RecommendationEngine engine = new RecommendationEngine(null, "overlap", 50);
+    private final RecommendationSnapshotStore store =
+            new RecommendationSnapshotStore(engine, Duration.ofHours(1), Duration.ofHours(1), 2);
+
+    @Test
+    void shouldServeSnapshotUntilRefresh() {
+        like(1, 1);
+        like(2, 1);
+        like(2, 2);
+
+        assertThat(store.getRecommendedFilmIds(1)).containsExactly(2);
+        assertThat(store.getSnapshotAge(1)).isPresent();
+
+        //Лайк соседа не сбрасывает снимок, новые данные появятся после фонового обновления
+        engine.onLikeChanged(new FilmLikeChangedEvent(3, 2, true));
+        assertThat(store.getRecommendedFilmIds(1)).containsExactly(2);
+
+        store.refresh();
+        assertThat(store.getRecommendedFilmIds(1)).containsExactly(2, 3);
+    }
+
+    @Test
+    void shouldRecomputeAfterOwnLike() {
+        like(1, 1);
+        like(2, 1);
+        like(2, 2);
+
+        assertThat(store.getRecommendedFilmIds(1)).containsExactly(2);
+
+        like(1, 2);
+        assertThat(store.getSnapshotAge(1)).isEmpty();
+        assertThat(store.getRecommendedFilmIds(1)).isEmpty();
+    }
+
+    private void like(int userId, int filmId) {
+        FilmLikeChangedEvent event = new FilmLikeChangedEvent(filmId, userId, true);
+        engine.onLikeChanged(event);
+        store.onLikeChanged(event);
+    }
+}
@@ -0,0 +1,93 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.MpaRating;
+import ru.yandex.practicum.filmorate.model.Review;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@Sql(executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD,
+        scripts = "classpath:clear_tables.sql")
+class ReviewServiceTest {
+    private final ReviewService reviewService;
+    private final ReviewUsefulCounter usefulCounter;
+    private final UserService userService;
+    private final FilmStorage filmStorage;
+    private final JdbcTemplate jdbcTemplate;
+
+    private int reviewId;
+    private User author;
+
+    @BeforeEach
+    void setUp() {
+        Film film = new Film("Фильм", "Описание", LocalDate.of(2000, 1, 1), 90);
+        film.setMpa(new MpaRating(1, "G"));
+        film.setGenres(List.of());
+        int filmId = filmStorage.addFilm(film).getId();
+        author = userService.addUser(user("author"));
+        reviewId = reviewService.addReview(Review.builder()
+                .filmId(filmId)
+                .userId(author.getId())
+                .content("Хороший фильм")
+                .isPositive(true)
+                .build()).getReviewId();
+    }
+
+    @Test
+    void shouldPersistUsefulThroughReactionChanges() {
+        int userId = userService.addUser(user("reader")).getId();
+
+        reviewService.addLike(reviewId, userId);
+        assertThat(persistedUseful()).isEqualTo(1);
+        reviewService.addDislike(reviewId, userId);
+        assertThat(persistedUseful()).isEqualTo(-1);
+        reviewService.addDislike(reviewId, userId);
+        assertThat(persistedUseful()).isEqualTo(-1);
+        reviewService.removeReaction(reviewId, userId);
+        assertThat(persistedUseful()).isZero();
+    }
+
+    @Test
+    void shouldRevertReactionsOfDeletedUser() {
+        int liker = userService.addUser(user("liker")).getId();
+        int disliker = userService.addUser(user("disliker")).getId();
+        int other = userService.addUser(user("other")).getId();
+        reviewService.addLike(reviewId, liker);
+        reviewService.addLike(reviewId, other);
+        reviewService.addDislike(reviewId, disliker);
+        assertThat(persistedUseful()).isEqualTo(1);
+
+        userService.deleteUser(liker);
+        assertThat(persistedUseful()).isZero();
+        //Ещё не записанное изменение полезности складывается с поправкой при удалении
+        reviewService.addLike(reviewId, disliker);
+        userService.deleteUser(disliker);
+        assertThat(persistedUseful()).isEqualTo(1);
+        assertThat(reviewService.getReviewById(reviewId).getUseful()).isEqualTo(1);
+    }
+
+    private int persistedUseful() {
+        usefulCounter.flush();
+        return jdbcTemplate.queryForObject("SELECT useful FROM reviews WHERE review_id = ?", Integer.class, reviewId);
+    }
+
+    private static User user(String login) {
+        return new User(login + "@yandex.ru", login, login, LocalDate.of(1990, 1, 1));
+    }
+}
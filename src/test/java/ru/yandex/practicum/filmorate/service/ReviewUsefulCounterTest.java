@@ -0,0 +1,53 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Review;
+import ru.yandex.practicum.filmorate.storage.review.ReviewRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReviewUsefulCounterTest {
+    private final List<Map<Integer, Integer>> batches = new ArrayList<>();
+    private ReviewUsefulCounter counter;
+
+    @BeforeEach
+    void setUp() {
+        counter = new ReviewUsefulCounter(new ReviewRepository(null, null) {
+            @Override
+            public void addUseful(Map<Integer, Integer> deltas) {
+                batches.add(Map.copyOf(deltas));
+            }
+        });
+    }
+
+    @Test
+    void shouldMergeDeltasIntoOneBatch() {
+        counter.add(1, 1);
+        counter.add(1, 1);
+        counter.add(2, -1);
+        counter.add(3, 1);
+        counter.add(3, -1);
+
+        counter.flush();
+        counter.flush();
+
+        assertThat(batches).containsExactly(Map.of(1, 2, 2, -1));
+    }
+
+    @Test
+    void shouldAddPendingDeltaToStoredUseful() {
+        counter.add(1, 2);
+        Review review = Review.builder().reviewId(1).useful(3).build();
+
+        assertThat(counter.withPending(review).getUseful()).isEqualTo(5);
+
+        counter.flush();
+        Review stored = Review.builder().reviewId(1).useful(5).build();
+        assertThat(counter.withPending(stored).getUseful()).isEqualTo(5);
+    }
+}
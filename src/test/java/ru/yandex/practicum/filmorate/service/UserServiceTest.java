@@ -0,0 +1,52 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.jdbc.Sql;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.time.LocalDate;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@Sql(executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD,
+        scripts = "classpath:clear_tables.sql")
+class UserServiceTest {
+    private final UserService userService;
+
+    @Test
+    void shouldUpdateCommonFriendsAfterFriendListReplaced() {
+        User first = userService.addUser(user("first"));
+        User second = userService.addUser(user("second"));
+        User common = userService.addUser(user("common"));
+        User other = userService.addUser(user("other"));
+        userService.addFriend(first.getId(), other.getId());
+        userService.addFriend(second.getId(), common.getId());
+
+        first.setFriends(Set.of((long) common.getId()));
+        userService.updateUser(first);
+
+        assertThat(userService.getCommonFriends(first.getId(), second.getId()))
+                .extracting(User::getId)
+                .containsExactly(common.getId());
+        assertThat(userService.getFriends(first.getId()))
+                .extracting(User::getId)
+                .containsExactly(common.getId());
+
+        first.setFriends(Set.of());
+        userService.updateUser(first);
+
+        assertThat(userService.getCommonFriends(first.getId(), second.getId())).isEmpty();
+    }
+
+    private static User user(String login) {
+        return new User(login + "@yandex.ru", login, login, LocalDate.of(1990, 1, 1));
+    }
+}
@@ -0,0 +1,71 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ConnectionLimitingDataSourceTest {
+    private final ConnectionLimitingDataSource dataSource = new ConnectionLimitingDataSource(
+            new DriverManagerDataSource("jdbc:h2:mem:limiter;DB_CLOSE_DELAY=-1", "sa", ""), 2, Duration.ofMillis(100));
+
+    @Test
+    void shouldFailFastWhenAllPermitsAreTaken() throws Exception {
+        Connection first = dataSource.getConnection();
+        Connection second = dataSource.getConnection();
+        assertThat(dataSource.getActiveConnections()).isEqualTo(2);
+
+        assertThatThrownBy(dataSource::getConnection).isInstanceOf(SQLTransientConnectionException.class);
+        assertThat(dataSource.getActiveConnections()).isEqualTo(2);
+
+        first.close();
+        //Повторное закрытие не освобождает чужое разрешение
+        first.close();
+        assertThat(dataSource.getActiveConnections()).isEqualTo(1);
+
+        try (Connection third = dataSource.getConnection()) {
+            assertThat(third.isValid(1)).isTrue();
+        }
+        second.close();
+        assertThat(dataSource.getActiveConnections()).isZero();
+    }
+
+    @Test
+    void shouldNeverHandOutMoreConnectionsThanLimit() throws Exception {
+        ConnectionLimitingDataSource limited = new ConnectionLimitingDataSource(
+                new DriverManagerDataSource("jdbc:h2:mem:limiter;DB_CLOSE_DELAY=-1", "sa", ""), 2, Duration.ofSeconds(5));
+        AtomicInteger holding = new AtomicInteger();
+        AtomicInteger maxHolding = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 20; i++) {
+                futures.add(executor.submit(() -> {
+                    try (Connection connection = limited.getConnection()) {
+                        maxHolding.accumulateAndGet(holding.incrementAndGet(), Math::max);
+                        Thread.sleep(10);
+                        holding.decrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+
+        assertThat(maxHolding.get()).isEqualTo(2);
+        assertThat(limited.getActiveConnections()).isZero();
+        assertThat(limited.getQueueLength()).isZero();
+    }
+}
@@ -0,0 +1,63 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConnectionPoolMonitorTest {
+    private final HikariDataSource hikari = new HikariDataSource();
+
+    @AfterEach
+    void tearDown() {
+        hikari.close();
+    }
+
+    @Test
+    void shouldReportPoolAndLimiterStateUnderHikari() throws Exception {
+        hikari.setJdbcUrl("jdbc:h2:mem:pool;DB_CLOSE_DELAY=-1");
+        hikari.setUsername("sa");
+        hikari.setMaximumPoolSize(4);
+        DataSourcePostProcessor postProcessor = new DataSourcePostProcessor(3, Duration.ofSeconds(1));
+        postProcessor.postProcessBeforeInitialization(hikari, "dataSource");
+        DataSource dataSource = (DataSource) postProcessor.postProcessAfterInitialization(hikari, "dataSource");
+
+        assertThat(dataSource).isInstanceOf(QueryCountingDataSource.class);
+        assertThat(dataSource.isWrapperFor(ConnectionLimitingDataSource.class)).isTrue();
+        assertThat(hikari.getMetricsTrackerFactory()).isInstanceOf(ConnectionPoolMetrics.class);
+
+        ConnectionPoolMonitor monitor = new ConnectionPoolMonitor(dataSource);
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("SELECT 1");
+            ConnectionPoolMonitor.Stats stats = monitor.getStats();
+            assertThat(stats.maxSize()).isEqualTo(4);
+            assertThat(stats.active()).isEqualTo(1);
+            assertThat(stats.limiterActive()).isEqualTo(1);
+            assertThat(stats.acquisitions()).isPositive();
+        }
+
+        ConnectionPoolMonitor.Stats stats = monitor.getStats();
+        assertThat(stats.active()).isZero();
+        assertThat(stats.idle()).isPositive();
+        assertThat(stats.limiterActive()).isZero();
+        assertThat(stats.averageWaitMillis()).isPositive();
+        assertThat(stats.maxWaitMillis()).isPositive();
+    }
+
+    @Test
+    void shouldReportZerosWithoutHikari() {
+        DataSourcePostProcessor postProcessor = new DataSourcePostProcessor(0, Duration.ofSeconds(1));
+        DataSource dataSource = (DataSource) postProcessor.postProcessAfterInitialization(
+                new DriverManagerDataSource("jdbc:h2:mem:plain"), "dataSource");
+
+        assertThat(new ConnectionPoolMonitor(dataSource).getStats())
+                .isEqualTo(new ConnectionPoolMonitor.Stats(0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0));
+    }
+}
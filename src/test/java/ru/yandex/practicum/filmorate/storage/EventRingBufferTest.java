@@ -0,0 +1,63 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.feed.Event;
+import ru.yandex.practicum.filmorate.storage.event.EventRingBuffer;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EventRingBufferTest {
+
+    @Test
+    void shouldServeWholeHistoryWhileNothingIsEvicted() {
+        EventRingBuffer buffer = new EventRingBuffer(5, events(1, 3), true);
+        buffer.add(event(4));
+        buffer.add(event(4));
+
+        assertThat(ids(buffer.before(Integer.MAX_VALUE, Integer.MAX_VALUE))).containsExactly(1, 2, 3, 4);
+        assertThat(ids(buffer.before(4, 2))).containsExactly(2, 3);
+        assertThat(ids(buffer.before(2, 10))).containsExactly(1);
+    }
+
+    @Test
+    void shouldRefusePagesReachingPastEvictedEvents() {
+        EventRingBuffer buffer = new EventRingBuffer(3, events(1, 2), true);
+        buffer.add(event(3));
+        buffer.add(event(4));
+
+        assertThat(ids(buffer.before(Integer.MAX_VALUE, 3))).containsExactly(2, 3, 4);
+        assertThat(ids(buffer.before(4, 2))).containsExactly(2, 3);
+        assertThat(buffer.before(4, 3)).isNull();
+        assertThat(buffer.before(Integer.MAX_VALUE, Integer.MAX_VALUE)).isNull();
+    }
+
+    @Test
+    void shouldKeepOnlyLatestEventsOfLongHistory() {
+        EventRingBuffer buffer = new EventRingBuffer(3, events(1, 4), false);
+
+        assertThat(ids(buffer.before(Integer.MAX_VALUE, 3))).containsExactly(2, 3, 4);
+        assertThat(buffer.before(3, 2)).isNull();
+    }
+
+    private static List<Event> events(int fromId, int toId) {
+        return IntStream.rangeClosed(fromId, toId).mapToObj(EventRingBufferTest::event).toList();
+    }
+
+    private static Event event(int id) {
+        return Event.builder()
+                .eventId(id)
+                .userId(1)
+                .entityId(1)
+                .eventType("LIKE")
+                .operation("ADD")
+                .timestamp((long) id)
+                .build();
+    }
+
+    private static List<Integer> ids(List<Event> events) {
+        return events.stream().map(Event::getEventId).toList();
+    }
+}
@@ -0,0 +1,62 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.film.FilmCache;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FilmCacheTest {
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void shouldLoadFilmOnceAndCountHits() {
+        FilmCache cache = new FilmCache(10, Duration.ofMinutes(1));
+
+        cache.getOrLoad(1, this::load);
+        Optional<Film> cached = cache.getOrLoad(1, this::load);
+
+        assertThat(cached).isPresent();
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(cache.getStats().hits()).isEqualTo(1);
+        assertThat(cache.getStats().misses()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldReloadFilmAfterInvalidation() {
+        FilmCache cache = new FilmCache(10, Duration.ofMinutes(1));
+
+        cache.getOrLoad(1, this::load);
+        cache.invalidate(1);
+        cache.getOrLoad(1, this::load);
+
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedFilmWhenFull() {
+        FilmCache cache = new FilmCache(2, Duration.ofMinutes(1));
+
+        cache.getOrLoad(1, this::load);
+        cache.getOrLoad(2, this::load);
+        cache.getOrLoad(1, this::load);
+        cache.getOrLoad(3, this::load);
+        cache.getOrLoad(1, this::load);
+
+        assertThat(loads.get()).isEqualTo(3);
+        assertThat(cache.getStats().evictions()).isEqualTo(1);
+        assertThat(cache.getStats().size()).isEqualTo(2);
+    }
+
+    private Optional<Film> load(int id) {
+        loads.incrementAndGet();
+        Film film = new Film("Фильм " + id, "Описание", LocalDate.of(2000, 1, 1), 100);
+        film.setId(id);
+        return Optional.of(film);
+    }
+}
@@ -8,13 +8,16 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.jdbc.Sql;
 import ru.yandex.practicum.filmorate.model.Director;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
 import ru.yandex.practicum.filmorate.model.MpaRating;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.storage.director.DirectorStorage;
 import ru.yandex.practicum.filmorate.storage.film.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.genre.GenreStorage;
 import ru.yandex.practicum.filmorate.storage.user.UserStorage;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -29,6 +32,8 @@ class FilmDbStorageTest {
     private final FilmDbStorage filmStorage;
     private final DirectorStorage directorStorage;
     private final UserStorage userStorage;
+    private final GenreStorage genreStorage;
+    private final QueryCounter queryCounter;
 
     @Test
     void shouldAddAndFindFilmById() {
@@ -126,4 +131,62 @@ class FilmDbStorageTest {
                 .extracting(Film::getName)
                 .containsExactly("Фильм 2", "Фильм 1");
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldKeepLikesCountInSyncWithLikes() {
+        int userId = userStorage.addUser(new User("user2", "petya", "petya1",
+                LocalDate.of(2020, 1, 1))).getId();
+
+        Film film = new Film("Фильм", "Описание", LocalDate.of(2020, 1, 1), 120);
+        film.setMpa(new MpaRating(1, "G"));
+        filmStorage.addFilm(film);
+
+        filmStorage.addLike(film.getId(), userId);
+        assertThat(filmStorage.reconcileLikesCount()).isZero();
+
+        assertThat(filmStorage.removeLike(film.getId(), userId)).isTrue();
+        assertThat(filmStorage.removeLike(film.getId(), userId)).isFalse();
+        assertThat(filmStorage.reconcileLikesCount()).isZero();
+    }
+
+    @Test
+    void shouldLoadGenresAndDirectorsWithConstantNumberOfQueries() {
+        Director director = directorStorage.addDirector(new Director(null, "Режиссёр"));
+        List<Integer> ids = new ArrayList<>();
+        addFilms(2, director, ids);
+        int byIds = countQueries(() -> filmStorage.getFilmsByIds(ids));
+        int all = countQueries(filmStorage::getAllFilms);
+        int byDirector = countQueries(() -> filmStorage.getFilmsByDirectorSortedByYear(director.getId()));
+        assertThat(byIds).isEqualTo(3);
+
+        addFilms(18, director, ids);
+        //Жанры и режиссёры грузятся одним запросом на весь список, а не запросом на фильм
+        assertThat(countQueries(() -> filmStorage.getFilmsByIds(ids))).isEqualTo(byIds);
+        assertThat(countQueries(filmStorage::getAllFilms)).isEqualTo(all);
+        assertThat(countQueries(() -> filmStorage.getFilmsByDirectorSortedByYear(director.getId())))
+                .isEqualTo(byDirector);
+        assertThat(filmStorage.getFilmsByIds(ids))
+                .hasSize(20)
+                .allSatisfy(film -> {
+                    assertThat(film.getGenres()).hasSize(2);
+                    assertThat(film.getDirectors()).hasSize(1);
+                });
+    }
+
+    private void addFilms(int count, Director director, List<Integer> ids) {
+        for (int i = 0; i < count; i++) {
+            Film film = new Film("Фильм " + ids.size(), "Описание", LocalDate.of(2000 + i, 1, 1), 100);
+            film.setMpa(new MpaRating(1, "G"));
+            int filmId = filmStorage.addFilm(film).getId();
+            genreStorage.addGenresToFilm(filmId, List.of(new Genre(1), new Genre(2)));
+            directorStorage.addDirectorsToFilm(filmId, List.of(director));
+            ids.add(filmId);
+        }
+    }
+
+    private int countQueries(Runnable action) {
+        queryCounter.start();
+        action.run();
+        return queryCounter.finish();
+    }
+}
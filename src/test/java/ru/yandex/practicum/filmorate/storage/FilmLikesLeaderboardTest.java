@@ -0,0 +1,105 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.service.events.FilmDeletedEvent;
+import ru.yandex.practicum.filmorate.service.events.FilmLikeChangedEvent;
+import ru.yandex.practicum.filmorate.service.events.FilmSavedEvent;
+import ru.yandex.practicum.filmorate.storage.film.FilmFacetIndex;
+import ru.yandex.practicum.filmorate.storage.film.FilmFilter;
+import ru.yandex.practicum.filmorate.storage.film.FilmLikesLeaderboard;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.function.IntPredicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FilmLikesLeaderboardTest {
+    private static final IntPredicate ALL = filmId -> true;
+
+    private FilmLikesLeaderboard leaderboard;
+    private FilmFacetIndex facetIndex;
+
+    @BeforeEach
+    void setUp() {
+        leaderboard = new FilmLikesLeaderboard(null);
+        facetIndex = new FilmFacetIndex(null);
+        for (Film film : List.of(film(1, 2000, 1), film(2, 2000, 2), film(3, 2010, 1))) {
+            leaderboard.onFilmSaved(new FilmSavedEvent(film));
+            facetIndex.onFilmSaved(new FilmSavedEvent(film));
+        }
+    }
+
+    @Test
+    void shouldOrderFilmsByLikesAndThenById() {
+        leaderboard.onLikeChanged(new FilmLikeChangedEvent(3, 1, true));
+        leaderboard.onLikeChanged(new FilmLikeChangedEvent(3, 2, true));
+        leaderboard.onLikeChanged(new FilmLikeChangedEvent(2, 1, true));
+
+        assertThat(leaderboard.getTopFilmIds(10, ALL)).containsExactly(3, 2, 1);
+        assertThat(leaderboard.getTopFilmIds(2, ALL)).containsExactly(3, 2);
+    }
+
+    @Test
+    void shouldFilterByGenreAndYear() {
+        leaderboard.onLikeChanged(new FilmLikeChangedEvent(1, 1, true));
+
+        assertThat(leaderboard.getTopFilmIds(10, facetIndex.match(filter(Set.of(1), null, null))))
+                .containsExactly(1, 3);
+        assertThat(leaderboard.getTopFilmIds(10, facetIndex.match(filter(Set.of(1), 2010, 2010))))
+                .containsExactly(3);
+        assertThat(leaderboard.getTopFilmIds(10, facetIndex.match(filter(Set.of(), 2000, 2000))))
+                .containsExactly(1, 2);
+        assertThat(leaderboard.getTopFilmIds(10, facetIndex.match(filter(Set.of(1, 2), 1990, 2005))))
+                .containsExactly(1, 2);
+    }
+
+    @Test
+    void shouldFilterByDirectorTogetherWithOtherFacets() {
+        Film first = film(4, 2000, 1);
+        first.setDirectors(List.of(new Director(7, "Режиссёр")));
+        Film second = film(5, 2010, 2);
+        second.setDirectors(List.of(new Director(7, "Режиссёр"), new Director(8, "Другой")));
+        facetIndex.onFilmSaved(new FilmSavedEvent(first));
+        facetIndex.onFilmSaved(new FilmSavedEvent(second));
+
+        assertThat(facetIndex.match(new FilmFilter(Set.of(), Set.of(), Set.of(7), null, null)).stream())
+                .containsExactly(4, 5);
+        assertThat(facetIndex.match(new FilmFilter(Set.of(1), Set.of(), Set.of(7, 8), null, null)).stream())
+                .containsExactly(4);
+        assertThat(facetIndex.match(new FilmFilter(Set.of(1, 2), Set.of(), Set.of(8), 2010, null)).stream())
+                .containsExactly(5);
+        assertThat(facetIndex.match(new FilmFilter(Set.of(), Set.of(), Set.of(9), null, null)).isEmpty()).isTrue();
+
+        facetIndex.onFilmDeleted(new FilmDeletedEvent(5));
+        assertThat(facetIndex.match(new FilmFilter(Set.of(), Set.of(), Set.of(8), null, null)).isEmpty()).isTrue();
+        assertThat(facetIndex.match(new FilmFilter(Set.of(), Set.of(), Set.of(7), null, null)).stream())
+                .containsExactly(4);
+    }
+
+    @Test
+    void shouldForgetRemovedLikesAndDeletedFilms() {
+        leaderboard.onLikeChanged(new FilmLikeChangedEvent(1, 1, true));
+        leaderboard.onLikeChanged(new FilmLikeChangedEvent(1, 1, false));
+        leaderboard.onFilmDeleted(new FilmDeletedEvent(2));
+
+        assertThat(leaderboard.getLikes(1)).isZero();
+        assertThat(leaderboard.getTopFilmIds(10, ALL)).containsExactly(1, 3);
+    }
+
+    private FilmFilter filter(Set<Integer> genreIds, Integer yearFrom, Integer yearTo) {
+        return new FilmFilter(genreIds, Set.of(), Set.of(), yearFrom, yearTo);
+    }
+
+    private Film film(int id, int year, int genreId) {
+        Film film = new Film("Фильм " + id, "Описание", LocalDate.of(year, 1, 1), 100);
+        film.setId(id);
+        film.setGenres(List.of(new Genre(genreId)));
+        return film;
+    }
+}
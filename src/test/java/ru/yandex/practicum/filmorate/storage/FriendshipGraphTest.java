@@ -0,0 +1,53 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.service.events.FriendshipChangedEvent;
+import ru.yandex.practicum.filmorate.service.events.UserDeletedEvent;
+import ru.yandex.practicum.filmorate.storage.user.FriendshipGraph;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FriendshipGraphTest {
+    private FriendshipGraph graph;
+
+    @BeforeEach
+    void setUp() {
+        graph = new FriendshipGraph(null);
+        addFriend(1, 2);
+        addFriend(1, 3);
+        addFriend(2, 3);
+        addFriend(2, 4);
+        addFriend(3, 4);
+        addFriend(3, 5);
+        addFriend(4, 1);
+    }
+
+    @Test
+    void shouldReturnCommonFriendsInIdOrder() {
+        addFriend(1, 4);
+        assertThat(graph.getCommonFriendIds(1, 2)).containsExactly(3, 4);
+        assertThat(graph.getCommonFriendIds(1, 5)).isEmpty();
+    }
+
+    @Test
+    void shouldRankSuggestionsByMutualFriends() {
+        assertThat(graph.getSuggestedFriendIds(1, 10)).containsExactly(4, 5);
+        assertThat(graph.getSuggestedFriendIds(1, 1)).containsExactly(4);
+    }
+
+    @Test
+    void shouldForgetRemovedFriendshipsAndDeletedUsers() {
+        graph.onFriendshipChanged(new FriendshipChangedEvent(1, 2, false));
+        assertThat(graph.getFriendIds(1)).containsExactly(3);
+
+        graph.onUserDeleted(new UserDeletedEvent(3));
+        assertThat(graph.getFriendIds(1)).isEmpty();
+        assertThat(graph.getFriendIds(2)).containsExactly(4);
+        assertThat(graph.getSuggestedFriendIds(2, 10)).containsExactly(1);
+    }
+
+    private void addFriend(int userId, int friendId) {
+        graph.onFriendshipChanged(new FriendshipChangedEvent(userId, friendId, true));
+    }
+}
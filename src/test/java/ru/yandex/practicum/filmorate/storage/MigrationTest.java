@@ -0,0 +1,44 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//База, созданная старым schema.sql, должна доехать до текущей схемы без потери данных
+class MigrationTest {
+
+    @Test
+    void shouldMigrateDatabaseCreatedBeforeFlyway() {
+        DataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:legacy;DB_CLOSE_DELAY=-1", "sa", "");
+        new ResourceDatabasePopulator(new ClassPathResource("legacy_schema.sql")).execute(dataSource);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.update("INSERT INTO mpa_ratings (mpa_id, name) VALUES (1, 'G')");
+        jdbcTemplate.update("INSERT INTO users (email, login, birthday) VALUES ('a@ya.ru', 'a', '1990-01-01')");
+        jdbcTemplate.update("INSERT INTO users (email, login, birthday) VALUES ('b@ya.ru', 'b', '1990-01-01')");
+        jdbcTemplate.update("INSERT INTO films (name, release_date, duration, mpa_id) VALUES ('Фильм', '2000-01-01', 90, 1)");
+        jdbcTemplate.update("INSERT INTO films (name, release_date, duration, mpa_id) VALUES ('Другой', '2000-01-01', 90, 1)");
+        jdbcTemplate.update("INSERT INTO film_likes (film_id, user_id) VALUES (1, 1), (1, 2), (2, 2)");
+
+        Flyway.configure()
+                .dataSource(dataSource)
+                .baselineOnMigrate(true)
+                .baselineVersion("1")
+                .load()
+                .migrate();
+
+        assertThat(jdbcTemplate.queryForList("SELECT likes_count FROM films ORDER BY film_id", Integer.class))
+                .containsExactly(2, 1);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM genres", Integer.class)).isPositive();
+        assertThat(jdbcTemplate.queryForObject("""
+                SELECT COUNT(*) FROM information_schema.indexes
+                WHERE index_name IN ('FILMS_LIKES_COUNT_IDX', 'EVENTS_USER_EVENT_IDX', 'REVIEWS_FILM_USEFUL_REVIEW_IDX')
+                """, Integer.class)).isEqualTo(3);
+    }
+}
@@ -0,0 +1,104 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataRetrievalFailureException;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ParallelQueryExecutorTest {
+    private ParallelQueryExecutor executor;
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void shouldRunForkedQueriesConcurrently() {
+        executor = new ParallelQueryExecutor(true, Duration.ofSeconds(5));
+        CountDownLatch bothStarted = new CountDownLatch(2);
+
+        try (ParallelQueryExecutor.Scope scope = executor.open()) {
+            Supplier<String> first = scope.fork(() -> awaitOther(bothStarted, "genres"));
+            Supplier<String> second = scope.fork(() -> awaitOther(bothStarted, "directors"));
+            scope.join();
+
+            assertThat(first.get()).isEqualTo("genres");
+            assertThat(second.get()).isEqualTo("directors");
+        }
+    }
+
+    @Test
+    void shouldCancelOtherQueriesOnFailure() {
+        executor = new ParallelQueryExecutor(true, Duration.ofSeconds(5));
+        CountDownLatch interrupted = new CountDownLatch(1);
+
+        try (ParallelQueryExecutor.Scope scope = executor.open()) {
+            scope.fork(() -> {
+                try {
+                    Thread.sleep(10_000);
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                }
+                return null;
+            });
+            scope.fork(() -> {
+                throw new DataRetrievalFailureException("ошибка");
+            });
+
+            assertThatThrownBy(scope::join).isInstanceOf(DataRetrievalFailureException.class);
+        }
+        assertThat(awaitQuietly(interrupted)).isTrue();
+    }
+
+    @Test
+    void shouldFailWhenQueriesExceedTimeout() {
+        executor = new ParallelQueryExecutor(true, Duration.ofMillis(50));
+
+        try (ParallelQueryExecutor.Scope scope = executor.open()) {
+            scope.fork(() -> {
+                Thread.sleep(10_000);
+                return null;
+            });
+
+            assertThatThrownBy(scope::join).isInstanceOf(QueryTimeoutException.class);
+        }
+    }
+
+    @Test
+    void shouldRunInlineWhenDisabled() {
+        executor = new ParallelQueryExecutor(false, Duration.ofSeconds(5));
+        Thread caller = Thread.currentThread();
+
+        try (ParallelQueryExecutor.Scope scope = executor.open()) {
+            Supplier<Thread> thread = scope.fork(Thread::currentThread);
+            scope.join();
+
+            assertThat(thread.get()).isSameAs(caller);
+        }
+    }
+
+    private static String awaitOther(CountDownLatch latch, String result) throws InterruptedException {
+        latch.countDown();
+        if (!latch.await(5, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("Запросы выполнялись последовательно");
+        }
+        return result;
+    }
+
+    private static boolean awaitQuietly(CountDownLatch latch) {
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            return false;
+        }
+    }
+}
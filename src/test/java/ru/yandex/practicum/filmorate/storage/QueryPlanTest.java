@@ -0,0 +1,73 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.yandex.practicum.filmorate.storage.event.EventDbStorage;
+import ru.yandex.practicum.filmorate.storage.film.FilmDbStorage;
+import ru.yandex.practicum.filmorate.storage.review.ReviewRepository;
+import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+//Планы горячих запросов: каждый должен идти по индексу, а не полным просмотром таблицы
+@JdbcTest
+@AutoConfigureTestDatabase
+class QueryPlanTest {
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void filmIdsByUserShouldUseUserIndex() {
+        assertIndexed(FilmDbStorage.GET_FILM_IDS_BY_USER_ID_QUERY, 1);
+    }
+
+    @Test
+    void commonFilmsShouldUseUserIndex() {
+        assertIndexed(FilmDbStorage.GET_COMMON_FILMS_QUERY, 1, 2);
+    }
+
+    @Test
+    void filmsByIdsShouldUsePrimaryKey() {
+        assertIndexed(FilmDbStorage.GET_FILMS_BY_IDS_QUERY, (Object) new Integer[]{1, 2, 3});
+    }
+
+    @Test
+    void genresAndDirectorsOfFilmsShouldUsePrimaryKey() {
+        assertIndexed(FilmDbStorage.GET_GENRES_BY_FILM_IDS_QUERY, (Object) new Integer[]{1, 2, 3});
+        assertIndexed(FilmDbStorage.GET_DIRECTORS_BY_FILM_IDS_QUERY, (Object) new Integer[]{1, 2, 3});
+    }
+
+    @Test
+    void filmsByDirectorShouldUseDirectorIndex() {
+        assertIndexed(FilmDbStorage.GET_FILMS_BY_DIRECTOR_SORTED_BY_YEAR_QUERY, 1);
+        assertIndexed(FilmDbStorage.GET_FILMS_BY_DIRECTOR_SORTED_BY_LIKES_QUERY, 1);
+    }
+
+    @Test
+    void friendsShouldUsePrimaryKey() {
+        assertIndexed(UserDbStorage.GET_FRIENDS_QUERY, 1);
+    }
+
+    @Test
+    void eventsPageShouldUseUserEventIndex() {
+        assertIndexed(EventDbStorage.GET_EVENTS_PAGE_QUERY, 1, 100, 10);
+    }
+
+    @Test
+    void reviewsShouldUseUsefulIndexes() {
+        assertIndexed(ReviewRepository.pageQuery(true, false, true), 1, 10);
+        assertIndexed(ReviewRepository.pageQuery(false, false, true), 10);
+        assertIndexed(ReviewRepository.pageQuery(true, true, false), 1, 5, 5, 10, 10);
+        assertIndexed(ReviewRepository.pageQuery(false, true, true), 5, 5, 10, 10);
+    }
+
+    private void assertIndexed(String sql, Object... params) {
+        String plan = jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class, params);
+        assertThat(plan)
+                .as("План запроса:%n%s", plan)
+                .doesNotContainIgnoringCase("tableScan");
+    }
+}
@@ -0,0 +1,125 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.MpaRating;
+import ru.yandex.practicum.filmorate.service.DirectorService;
+import ru.yandex.practicum.filmorate.service.events.DirectorChangedEvent;
+import ru.yandex.practicum.filmorate.storage.director.DirectorDbStorage;
+import ru.yandex.practicum.filmorate.storage.genre.GenreStorage;
+import ru.yandex.practicum.filmorate.storage.mpa.MpaStorage;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@Sql(executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD, scripts = "classpath:clear_tables.sql")
+class ReferenceDataCacheTest {
+    private final ReferenceDataCache referenceDataCache;
+    private final DirectorService directorService;
+    private final DirectorDbStorage directorStorage;
+    private final GenreStorage genreStorage;
+    private final MpaStorage mpaStorage;
+    private final JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM genres WHERE genre_id > 6");
+        referenceDataCache.rebuild();
+    }
+
+    @Test
+    void shouldServeReferenceDataFromSnapshotLoadedOnStartup() {
+        assertThat(referenceDataCache.getAllGenres()).extracting(Genre::getName)
+                .containsExactly("Комедия", "Драма", "Мультфильм", "Триллер", "Документальный", "Боевик");
+        assertThat(referenceDataCache.getMpaRating(3)).map(MpaRating::getName).contains("PG-13");
+
+        //Запись в обход сервисов не видна, пока снимок не перестроен
+        jdbcTemplate.update("INSERT INTO genres (genre_id, name) VALUES (7, 'Вестерн')");
+        assertThat(referenceDataCache.getGenre(7)).isEmpty();
+
+        referenceDataCache.rebuild();
+        assertThat(referenceDataCache.getGenre(7)).map(Genre::getName).contains("Вестерн");
+    }
+
+    @Test
+    void shouldReturnCopiesThatDoNotChangeSnapshot() {
+        referenceDataCache.getGenre(1).orElseThrow().setName("Изменено");
+        referenceDataCache.getAllMpaRatings().get(0).setName("Изменено");
+        int directorId = directorService.addDirector(new Director(null, "Режиссёр")).getId();
+        referenceDataCache.getDirectors(List.of(directorId)).get(0).setName("Изменено");
+
+        assertThat(referenceDataCache.getGenre(1)).map(Genre::getName).contains("Комедия");
+        assertThat(referenceDataCache.getMpaRating(1)).map(MpaRating::getName).contains("G");
+        assertThat(referenceDataCache.getDirectors(List.of(directorId))).extracting(Director::getName)
+                .containsExactly("Режиссёр");
+    }
+
+    @Test
+    void shouldRefreshDirectorOnChange() {
+        Director director = directorService.addDirector(new Director(null, "Режиссёр"));
+        assertThat(referenceDataCache.getDirectors(List.of(director.getId()))).extracting(Director::getName)
+                .containsExactly("Режиссёр");
+
+        directorService.updateDirector(new Director(director.getId(), "Новое имя"));
+        assertThat(referenceDataCache.getDirectors(List.of(director.getId()))).extracting(Director::getName)
+                .containsExactly("Новое имя");
+
+        directorService.deleteDirector(director.getId());
+        assertThat(referenceDataCache.getDirectors(List.of(director.getId()))).isEmpty();
+    }
+
+    @Test
+    void shouldLoadMissingDirectorsLazilyInRequestOrder() {
+        Director first = directorStorage.addDirector(new Director(null, "Первый"));
+        Director second = directorStorage.addDirector(new Director(null, "Второй"));
+
+        assertThat(referenceDataCache.getDirectors(List.of(second.getId(), first.getId(), -1)))
+                .extracting(Director::getName)
+                .containsExactly("Второй", "Первый");
+        //Догруженный режиссёр остаётся в снимке и без базы
+        jdbcTemplate.update("DELETE FROM directors WHERE director_id = ?", first.getId());
+        assertThat(referenceDataCache.getDirectors(List.of(first.getId()))).extracting(Director::getName)
+                .containsExactly("Первый");
+    }
+
+    @Test
+    void shouldNotCacheDirectorDeletedWhileLoading() {
+        ReferenceDataCache[] cache = new ReferenceDataCache[1];
+        boolean[] racing = {true};
+        //Режиссёр удаляется после того, как кэш прочитал его из базы, но до того, как положил в снимок
+        DirectorDbStorage racingStorage = new DirectorDbStorage(jdbcTemplate) {
+            @Override
+            public List<Director> getDirectorsByIds(List<Integer> ids) {
+                List<Director> loaded = super.getDirectorsByIds(ids);
+                if (!racing[0]) {
+                    return loaded;
+                }
+                racing[0] = false;
+                ids.forEach(id -> {
+                    deleteDirector(id);
+                    cache[0].onDirectorChanged(new DirectorChangedEvent(id));
+                });
+                return loaded;
+            }
+        };
+        cache[0] = new ReferenceDataCache(genreStorage, mpaStorage, racingStorage);
+        cache[0].rebuild();
+        int directorId = directorStorage.addDirector(new Director(null, "Режиссёр")).getId();
+
+        assertThat(cache[0].getDirectors(List.of(directorId))).hasSize(1);
+        //Устаревшая запись в снимок не попала: режиссёр снова ищется в базе и уже не находится
+        assertThat(cache[0].getDirectors(List.of(directorId))).isEmpty();
+    }
+}
@@ -0,0 +1,101 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Review;
+import ru.yandex.practicum.filmorate.storage.review.ReviewTopCache;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReviewTopCacheTest {
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void shouldServeFirstPageFromCache() {
+        ReviewTopCache cache = new ReviewTopCache(3);
+        List<Review> reviews = List.of(review(1, 5), review(2, 3), review(3, 3), review(4, 0));
+
+        cache.getOrLoad(1, 2, limit -> load(reviews, limit));
+        List<Review> cached = cache.getOrLoad(1, 3, limit -> load(reviews, limit));
+
+        assertThat(ids(cached)).containsExactly(1, 2, 3);
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldReorderOnDelta() {
+        ReviewTopCache cache = new ReviewTopCache(3);
+        List<Review> reviews = List.of(review(1, 5), review(2, 3), review(3, 1));
+        cache.getOrLoad(1, 3, limit -> load(reviews, limit));
+
+        assertThat(cache.applyDelta(3, 3)).isTrue();
+        assertThat(cache.applyDelta(10, 1)).isFalse();
+
+        List<Review> cached = cache.getOrLoad(1, 3, limit -> load(reviews, limit));
+        assertThat(ids(cached)).containsExactly(1, 3, 2);
+        assertThat(cached.get(1).getUseful()).isEqualTo(4);
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldEvictWhenLastReviewDropsBelowUncachedOnes() {
+        ReviewTopCache cache = new ReviewTopCache(2);
+        List<Review> reviews = List.of(review(1, 5), review(2, 3), review(3, 2));
+        cache.getOrLoad(1, 2, limit -> load(reviews, limit));
+
+        cache.applyDelta(2, -2);
+        cache.getOrLoad(1, 2, limit -> load(reviews, limit));
+
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldAcceptOfferedReviewAndDropTail() {
+        ReviewTopCache cache = new ReviewTopCache(2);
+        List<Review> reviews = List.of(review(1, 5), review(2, 3), review(3, 2));
+        cache.getOrLoad(1, 2, limit -> load(reviews, limit));
+
+        cache.offer(review(3, 4));
+        cache.offer(review(4, 1));
+
+        List<Review> cached = cache.getOrLoad(1, 2, limit -> load(reviews, limit));
+        assertThat(ids(cached)).containsExactly(1, 3);
+        assertThat(cache.applyDelta(2, 1)).isFalse();
+    }
+
+    @Test
+    void shouldNotCacheListLoadedDuringChange() {
+        ReviewTopCache cache = new ReviewTopCache(3);
+        List<Review> reviews = List.of(review(1, 5));
+
+        cache.getOrLoad(1, 1, limit -> {
+            cache.applyDelta(7, 1);
+            return load(reviews, limit);
+        });
+        cache.getOrLoad(1, 1, limit -> load(reviews, limit));
+
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    private List<Review> load(List<Review> reviews, int limit) {
+        loads.incrementAndGet();
+        return reviews.stream().limit(limit).toList();
+    }
+
+    private static Review review(int id, int useful) {
+        return Review.builder()
+                .reviewId(id)
+                .filmId(1)
+                .userId(1)
+                .content("Отзыв " + id)
+                .isPositive(true)
+                .useful(useful)
+                .build();
+    }
+
+    private static List<Integer> ids(List<Review> reviews) {
+        return reviews.stream().map(Review::getReviewId).toList();
+    }
+}
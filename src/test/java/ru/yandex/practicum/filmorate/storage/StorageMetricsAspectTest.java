@@ -0,0 +1,51 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.jdbc.Sql;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.MpaRating;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@AutoConfigureTestDatabase
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+@Sql(executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD, scripts = "classpath:clear_tables.sql")
+class StorageMetricsAspectTest {
+    private final FilmStorage filmStorage;
+    private final MeterRegistry registry;
+
+    @Test
+    void shouldTimeOnlyDatabaseCallsBehindCache() {
+        Film film = new Film("Фильм", "Описание", LocalDate.of(2000, 1, 1), 90);
+        film.setMpa(new MpaRating(1, "G"));
+        film.setGenres(List.of());
+        int filmId = filmStorage.addFilm(film).getId();
+        long before = calls("getFilmById");
+
+        //Первый вызов идёт в базу через кеширующую обёртку, второй обслуживает кеш
+        filmStorage.getFilmById(filmId);
+        filmStorage.getFilmById(filmId);
+
+        assertThat(calls("getFilmById")).isEqualTo(before + 1);
+        assertThat(registry.find("filmorate.storage.calls").tag("method", "getFilmById").timers())
+                .extracting(timer -> timer.getId().getTag("component"))
+                .containsOnly("FilmDbStorage");
+    }
+
+    private long calls(String method) {
+        return registry.find("filmorate.storage.calls").tag("method", method).timers().stream()
+                .mapToLong(Timer::count)
+                .sum();
+    }
+}
@@ -0,0 +1,40 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.storage.search.SuggestionTrie;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SuggestionTrieTest {
+
+    @Test
+    void shouldReturnMostLikedDocumentsForPrefix() {
+        SuggestionTrie trie = new SuggestionTrie();
+        trie.add(1, "матрица");
+        trie.add(2, "матрица: перезагрузка");
+        trie.add(3, "мастер и маргарита");
+        trie.add(4, "маргарита");
+        trie.setScore(2, 5);
+        trie.setScore(3, 7);
+
+        assertThat(trie.top("ма", 10)).containsExactly(3, 2, 1, 4);
+        assertThat(trie.top("мат", 10)).containsExactly(2, 1);
+        assertThat(trie.top("ма", 2)).containsExactly(3, 2);
+        assertThat(trie.top("мы", 10)).isEmpty();
+    }
+
+    @Test
+    void shouldReorderAfterScoreChangesAndRemoval() {
+        SuggestionTrie trie = new SuggestionTrie();
+        trie.add(1, "брат");
+        trie.add(2, "брат 2");
+        trie.setScore(2, 3);
+
+        trie.setScore(2, 0);
+        trie.setScore(1, 1);
+        assertThat(trie.top("бр", 10)).containsExactly(1, 2);
+
+        trie.remove(1, "брат");
+        assertThat(trie.top("брат", 10)).containsExactly(2);
+    }
+}
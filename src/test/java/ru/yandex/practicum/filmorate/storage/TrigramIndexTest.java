@@ -0,0 +1,49 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.storage.search.TrigramIndex;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TrigramIndexTest {
+
+    @Test
+    void shouldFindSubstringsIgnoringCaseAndYo() {
+        TrigramIndex index = new TrigramIndex();
+        index.put(3, "Ёлки");
+        index.put(1, "Иван Васильевич меняет профессию");
+        index.put(2, "Ирония судьбы, или С лёгким паром");
+
+        assertThat(index.search("ЕЛКИ")).containsExactly(3);
+        assertThat(index.search("легким")).containsExactly(2);
+        assertThat(index.search("ро")).containsExactly(1, 2);
+        assertThat(index.search("профессия")).isEmpty();
+    }
+
+    //В отличие от прежнего LIKE '%q%', «%» и «_» в запросе — обычные символы, а не шаблоны
+    @Test
+    void shouldMatchLikeWildcardsLiterally() {
+        TrigramIndex index = new TrigramIndex();
+        index.put(1, "100% любви");
+        index.put(2, "Брат 2");
+        index.put(3, "Код_да Винчи");
+
+        assertThat(index.search("%")).containsExactly(1);
+        assertThat(index.search("0% л")).containsExactly(1);
+        assertThat(index.search("_")).containsExactly(3);
+        assertThat(index.search("бр_т")).isEmpty();
+    }
+
+    @Test
+    void shouldForgetRemovedAndReplacedTexts() {
+        TrigramIndex index = new TrigramIndex();
+        index.put(1, "Брат");
+        index.put(2, "Брат 2");
+
+        index.put(2, "Сестра");
+        index.remove(1);
+
+        assertThat(index.search("брат")).isEmpty();
+        assertThat(index.search("сестр")).containsExactly(2);
+    }
+}
@@ -10,6 +10,7 @@ import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
 
 import java.time.LocalDate;
+import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -38,4 +39,30 @@ class UserDbStorageTest {
                                 .hasFieldOrPropertyWithValue("login", "johnyshef")
                 );
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldTrackUserExistence() {
+        User user = userStorage.addUser(new User("exists@yandex.ru", "exists", "Существующий",
+                LocalDate.of(1990, 1, 1)));
+
+        assertThat(userStorage.existsById(user.getId())).isTrue();
+        assertThat(userStorage.existsById(user.getId() + 1000)).isFalse();
+
+        userStorage.deleteUser(user);
+        assertThat(userStorage.existsById(user.getId())).isFalse();
+    }
+
+    @Test
+    void shouldReturnUsersPageAfterCursor() {
+        User first = userStorage.addUser(new User("first@yandex.ru", "first", "Первый", LocalDate.of(1990, 1, 1)));
+        User second = userStorage.addUser(new User("second@yandex.ru", "second", "Второй", LocalDate.of(1990, 1, 1)));
+        User third = userStorage.addUser(new User("third@yandex.ru", "third", "Третий", LocalDate.of(1990, 1, 1)));
+        userStorage.addFriend(second.getId(), third.getId());
+
+        List<User> page = userStorage.getUsersPage(first.getId(), 2);
+
+        assertThat(page).extracting(User::getId).containsExactly(second.getId(), third.getId());
+        assertThat(page.getFirst().getFriends()).containsExactly((long) third.getId());
+        assertThat(userStorage.getUsersPage(third.getId(), 2)).isEmpty();
+    }
+}
@@ -1,3 +1,4 @@
+-- schema.sql в том виде, в каком он был до перехода на миграции Flyway
 DROP TABLE IF EXISTS film_directors;
 DROP TABLE IF EXISTS directors;
 DROP TABLE IF EXISTS review_likes;
@@ -95,4 +96,4 @@ CREATE TABLE IF NOT EXISTS events (
     event_type VARCHAR(10) NOT NULL CHECK (event_type IN ('LIKE', 'REVIEW', 'FRIEND')),
     operation VARCHAR(10) NOT NULL CHECK (operation IN ('REMOVE', 'ADD', 'UPDATE')),
     timestamp BIGINT NOT NULL
-);
\ No newline at end of file
+);